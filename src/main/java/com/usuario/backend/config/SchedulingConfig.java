@@ -0,0 +1,12 @@
+package com.usuario.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita los métodos @Scheduled (limpieza de tokens, volcado de contadores, etc.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
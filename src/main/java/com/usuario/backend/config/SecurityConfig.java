@@ -71,6 +71,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/secciones/carrera/*/ciclo/*").permitAll()
                         
                         // 🔥 HEALTH CHECKS PÚBLICOS
+                        .requestMatchers("/api/health").permitAll()
                         .requestMatchers("/api/carreras/health").permitAll()
                         .requestMatchers("/api/departamentos/health").permitAll()
                         .requestMatchers("/api/ciclos/health").permitAll()
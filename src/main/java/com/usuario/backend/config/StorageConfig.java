@@ -0,0 +1,86 @@
+package com.usuario.backend.config;
+
+import com.cloudinary.Cloudinary;
+import com.usuario.backend.service.storage.BlobStore;
+import com.usuario.backend.service.storage.CircuitBreaker;
+import com.usuario.backend.service.storage.CloudinaryBlobStore;
+import com.usuario.backend.service.storage.LocalBlobStore;
+import com.usuario.backend.service.storage.ResilientBlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Set;
+
+@Configuration
+public class StorageConfig {
+
+    @Value("${app.storage.backend:cloudinary}")
+    private String backend;
+
+    @Value("${app.storage.local.dir:${java.io.tmpdir}/tecbook-blobs}")
+    private String localDir;
+
+    @Value("${app.storage.local.public-url-base:/api/public/blobs}")
+    private String publicUrlBase;
+
+    @Value("${app.storage.local.carpetas-publicas:tecbook_profiles}")
+    private Set<String> carpetasPublicas;
+
+    @Value("${app.storage.adjuntos.dir:./data/adjuntos}")
+    private String adjuntosDir;
+
+    @Value("${app.storage.cloudinary.hilos:4}")
+    private int cloudinaryHilos;
+
+    @Value("${app.storage.cloudinary.cola:16}")
+    private int cloudinaryCola;
+
+    @Value("${app.storage.cloudinary.timeout-subida-ms:20000}")
+    private long timeoutSubidaMs;
+
+    @Value("${app.storage.cloudinary.timeout-borrado-ms:5000}")
+    private long timeoutBorradoMs;
+
+    @Value("${app.storage.cloudinary.circuito.ventana:20}")
+    private int circuitoVentana;
+
+    @Value("${app.storage.cloudinary.circuito.minimo-llamadas:5}")
+    private int circuitoMinimoLlamadas;
+
+    @Value("${app.storage.cloudinary.circuito.umbral-fallos-pct:50}")
+    private int circuitoUmbralFallosPct;
+
+    @Value("${app.storage.cloudinary.circuito.espera-abierto-ms:30000}")
+    private long circuitoEsperaAbiertoMs;
+
+    @Value("${app.storage.cloudinary.circuito.llamadas-prueba:2}")
+    private int circuitoLlamadasPrueba;
+
+    /**
+     * Almacenamiento principal (imágenes de perfil): Cloudinary o disco local. Cloudinary va
+     * detrás de un bulkhead con timeouts y circuit breaker para que su lentitud no bloquee la API.
+     */
+    @Bean
+    @Primary
+    public BlobStore blobStore(Cloudinary cloudinary) throws IOException {
+        if ("local".equalsIgnoreCase(backend)) {
+            return new LocalBlobStore(Paths.get(localDir), publicUrlBase, carpetasPublicas);
+        }
+        CircuitBreaker circuito = new CircuitBreaker("cloudinary", circuitoVentana, circuitoMinimoLlamadas,
+                circuitoUmbralFallosPct, circuitoEsperaAbiertoMs, circuitoLlamadasPrueba);
+        return new ResilientBlobStore(new CloudinaryBlobStore(cloudinary, (int) timeoutSubidaMs), circuito,
+                cloudinaryHilos, cloudinaryCola, timeoutSubidaMs, timeoutBorradoMs);
+    }
+
+    /**
+     * Adjuntos de anuncios: siempre en disco local y sin URL pública (se descargan con control de acceso)
+     */
+    @Bean
+    public LocalBlobStore adjuntosBlobStore() throws IOException {
+        return new LocalBlobStore(Paths.get(adjuntosDir), publicUrlBase, Set.of());
+    }
+}
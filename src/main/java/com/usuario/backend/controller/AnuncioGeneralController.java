@@ -1,6 +1,8 @@
 package com.usuario.backend.controller;
 
 import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.service.aula.AnuncioExportService;
 import com.usuario.backend.service.aula.AnuncioService;
 import com.usuario.backend.service.user.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +12,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/anuncios/general")
@@ -19,6 +25,9 @@ public class AnuncioGeneralController {
     @Autowired
     private AnuncioService anuncioService;
 
+    @Autowired
+    private AnuncioExportService anuncioExportService;
+
     @Autowired
     private UsuarioService usuarioService;
 
@@ -28,10 +37,34 @@ public class AnuncioGeneralController {
         return anuncioService.getAnunciosGenerales();
     }
 
-    // GET: todos los anuncios (generales y de aula)
+    // GET: todos los anuncios (generales y de aula), escritos en streaming con memoria constante
+    // ?format=ndjson devuelve un anuncio por línea en lugar de un array JSON
     @GetMapping("/todos")
-    public List<Anuncio> getTodosLosAnuncios() {
-        return anuncioService.getTodosLosAnuncios();
+    public void getTodosLosAnuncios(@RequestParam(defaultValue = "json") String format,
+                                    HttpServletResponse response) throws IOException {
+        response.setCharacterEncoding("UTF-8");
+        if ("ndjson".equalsIgnoreCase(format)) {
+            response.setContentType("application/x-ndjson");
+            anuncioExportService.exportarNdjson(response.getOutputStream());
+        } else {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            anuncioExportService.exportarJson(response.getOutputStream());
+        }
+    }
+
+    // GET: todos los anuncios paginados por id (solo administradores)
+    @GetMapping("/todos/paginado")
+    public ResponseEntity<?> getTodosLosAnunciosPaginado(
+        @RequestParam(required = false) Long afterId,
+        @RequestParam(required = false) Integer limit,
+        Principal principal
+    ) {
+        var usuario = usuarioService.findByCorreoInstitucional(principal.getName());
+        if (usuario == null || usuario.getRol() != Usuario.RolUsuario.ADMIN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Solo los administradores pueden listar todos los anuncios"));
+        }
+        return ResponseEntity.ok(anuncioService.getTodosLosAnunciosPaginado(afterId, limit));
     }
 
     // POST: crear un nuevo anuncio general (sin aulaId, es_general = true)
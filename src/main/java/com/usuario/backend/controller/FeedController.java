@@ -0,0 +1,56 @@
+package com.usuario.backend.controller;
+
+import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.service.aula.FeedService;
+import com.usuario.backend.service.user.UsuarioService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/feed")
+@CrossOrigin(origins = "*")
+public class FeedController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedController.class);
+
+    @Autowired
+    private FeedService feedService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    /**
+     * 🏠 Feed de inicio: anuncios generales y de todas las aulas del usuario en una sola página
+     */
+    @GetMapping
+    public ResponseEntity<?> getFeed(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit,
+                                     @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "Usuario no autenticado"));
+            }
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            if (usuario == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Usuario no encontrado"));
+            }
+            return ResponseEntity.ok(feedService.getFeed(usuario.getId(), usuario.getRol().toString(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error al obtener el feed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al obtener el feed", "message", e.getMessage()));
+        }
+    }
+}
@@ -1,15 +1,23 @@
 package com.usuario.backend.controller;
 
+import com.usuario.backend.model.dto.AnuncioStatsDTO;
+import com.usuario.backend.model.dto.ComentarioDTO;
+import com.usuario.backend.model.dto.ContadoresAnuncioDTO;
+import com.usuario.backend.model.dto.FeedPage;
 import com.usuario.backend.model.entity.*;
+import com.usuario.backend.service.interaccion.ComentarioService;
+import com.usuario.backend.service.interaccion.ContadorInteraccionesService;
+import com.usuario.backend.service.interaccion.EstadisticasInteraccionService;
+import com.usuario.backend.service.interaccion.LecturaIngestionService;
+import com.usuario.backend.service.interaccion.LikeService;
+import com.usuario.backend.service.interaccion.NoLeidosService;
 import com.usuario.backend.service.user.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -19,41 +27,64 @@ import java.util.*;
 @CrossOrigin(origins = "*")
 public class InteractionsController {
 
-    @PersistenceContext
-    private EntityManager entityManager;
-    
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private EstadisticasInteraccionService estadisticasService;
+
+    @Autowired
+    private LecturaIngestionService lecturaIngestionService;
+
+    @Autowired
+    private NoLeidosService noLeidosService;
+
+    @Autowired
+    private ComentarioService comentarioService;
+
+
     // ========== LIKES ==========
     
     @PostMapping("/like/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> toggleLike(@PathVariable Long anuncioId, 
                                        @AuthenticationPrincipal UserDetails userDetails) {
         try {
             Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
             
-            // Verificar si ya existe el like
-            Like existingLike = entityManager
-                .createQuery("SELECT l FROM Like l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Like.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList()
-                .stream()
-                .findFirst()
-                .orElse(null);
-
-            if (existingLike != null) {
-                // Quitar like
-                entityManager.remove(existingLike);
-                return ResponseEntity.ok(Map.of("liked", false, "message", "Like eliminado"));
-            } else {
-                // Agregar like
-                Like newLike = new Like(usuario.getId().intValue(), anuncioId);
-                entityManager.persist(newLike);
-                return ResponseEntity.ok(Map.of("liked", true, "message", "Like agregado"));
-            }
+            boolean liked = likeService.toggleLike(usuario.getId().intValue(), anuncioId);
+            return ResponseEntity.ok(Map.of("liked", liked, "message", liked ? "Like agregado" : "Like eliminado"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/like/{anuncioId}")
+    public ResponseEntity<?> darLike(@PathVariable Long anuncioId,
+                                    @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            boolean changed = likeService.darLike(usuario.getId().intValue(), anuncioId);
+            return ResponseEntity.ok(Map.of("liked", true, "changed", changed));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/like/{anuncioId}")
+    public ResponseEntity<?> quitarLike(@PathVariable Long anuncioId,
+                                       @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            boolean changed = likeService.quitarLike(usuario.getId().intValue(), anuncioId);
+            return ResponseEntity.ok(Map.of("liked", false, "changed", changed));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -62,12 +93,9 @@ public class InteractionsController {
     @GetMapping("/likes/{anuncioId}")
     public ResponseEntity<?> getLikes(@PathVariable Long anuncioId) {
         try {
-            Long count = entityManager
-                .createQuery("SELECT COUNT(l) FROM Like l WHERE l.anuncioId = :anuncioId", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
+            ContadoresAnuncioDTO contadores = contadorService.getContadores(anuncioId);
             
-            return ResponseEntity.ok(Map.of("count", count));
+            return ResponseEntity.ok(Map.of("count", contadores.totalLikes()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -78,11 +106,33 @@ public class InteractionsController {
         try {
             Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
             
-            List<Long> likedAnuncios = entityManager
-                .createQuery("SELECT l.anuncioId FROM Like l WHERE l.usuarioId = :usuarioId", Long.class)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList();
+            List<Long> likedAnuncios = likeService.getAnunciosConLike(usuario.getId().intValue());
+            
+            return ResponseEntity.ok(Map.of("likedAnuncios", likedAnuncios));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * De los anuncios visibles, cuáles tienen like del usuario.
+     * Body: {"anuncioIds": [1, 2, 3]}
+     */
+    @PostMapping("/user-likes/intersect")
+    public ResponseEntity<?> intersectUserLikes(@RequestBody Map<String, List<Long>> request,
+                                               @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            List<Long> anuncioIds = request.get("anuncioIds");
+            if (anuncioIds == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "anuncioIds requerido"));
+            }
+            if (anuncioIds.size() > EstadisticasInteraccionService.MAX_ANUNCIOS_POR_LOTE) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                    "Máximo " + EstadisticasInteraccionService.MAX_ANUNCIOS_POR_LOTE + " anuncios por petición"));
+            }
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
             
+            List<Long> likedAnuncios = likeService.getAnunciosConLike(usuario.getId().intValue(), anuncioIds);
             return ResponseEntity.ok(Map.of("likedAnuncios", likedAnuncios));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
@@ -92,7 +142,6 @@ public class InteractionsController {
     // ========== COMENTARIOS ==========
     
     @PostMapping("/comment/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> addComment(@PathVariable Long anuncioId,
                                        @RequestBody Map<String, String> request,
                                        @AuthenticationPrincipal UserDetails userDetails) {
@@ -104,8 +153,11 @@ public class InteractionsController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Contenido requerido"));
             }
 
-            Comentario comentario = new Comentario(usuario.getId().intValue(), anuncioId, contenido.trim());
-            entityManager.persist(comentario);
+            // Respuesta opcional a otro comentario
+            Long padreId = request.get("comentarioPadreId") != null ? Long.valueOf(request.get("comentarioPadreId")) : null;
+
+            Comentario comentario = comentarioService.crearComentario(
+                usuario.getId().intValue(), anuncioId, contenido.trim(), padreId);
             
             return ResponseEntity.ok(Map.of("message", "Comentario agregado", "comentarioId", comentario.getId()));
         } catch (Exception e) {
@@ -113,31 +165,21 @@ public class InteractionsController {
         }
     }
 
+    /**
+     * Hilos de comentarios paginados por comentario raíz, con sus respuestas anidadas
+     */
     @GetMapping("/comments/{anuncioId}")
-    public ResponseEntity<?> getComments(@PathVariable Long anuncioId) {
+    public ResponseEntity<?> getComments(@PathVariable Long anuncioId,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(required = false) Integer limit) {
         try {
-            List<Object[]> results = entityManager
-                .createQuery("""
-                    SELECT c.id, c.contenido, c.fechaCreacion, c.usuarioId, u.nombre, u.apellidos 
-                    FROM Comentario c JOIN Usuario u ON c.usuarioId = u.id 
-                    WHERE c.anuncioId = :anuncioId AND c.activo = true 
-                    ORDER BY c.fechaCreacion ASC
-                    """, Object[].class)
-                .setParameter("anuncioId", anuncioId)
-                .getResultList();
-
-            List<Map<String, Object>> comentarios = new ArrayList<>();
-            for (Object[] result : results) {
-                Map<String, Object> comentario = new HashMap<>();
-                comentario.put("id", result[0]);
-                comentario.put("contenido", result[1]);
-                comentario.put("fechaCreacion", result[2]);
-                comentario.put("usuarioId", result[3]);
-                comentario.put("autor", result[4] + " " + result[5]);
-                comentarios.add(comentario);
-            }
-            
-            return ResponseEntity.ok(Map.of("comentarios", comentarios));
+            FeedPage<ComentarioDTO> page = comentarioService.getHilos(anuncioId, cursor, limit);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("comentarios", page.items());
+            response.put("nextCursor", page.nextCursor());
+            response.put("hasMore", page.hasMore());
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -145,23 +187,18 @@ public class InteractionsController {
 
     // ========== LECTURAS ==========
     
+    /**
+     * Encola la lectura; se persiste en el siguiente volcado por lotes
+     */
     @PostMapping("/read/{anuncioId}")
-    @Transactional
     public ResponseEntity<?> markAsRead(@PathVariable Long anuncioId,
                                        @AuthenticationPrincipal UserDetails userDetails) {
         try {
             Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
             
-            // Verificar si ya está marcado como leído
-            List<Lectura> existing = entityManager
-                .createQuery("SELECT l FROM Lectura l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Lectura.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList();
-
-            if (existing.isEmpty()) {
-                Lectura lectura = new Lectura(usuario.getId().intValue(), anuncioId);
-                entityManager.persist(lectura);
+            if (!lecturaIngestionService.registrar(usuario.getId().intValue(), anuncioId)) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Demasiadas lecturas pendientes, reintenta en unos segundos"));
             }
             
             return ResponseEntity.ok(Map.of("message", "Marcado como leído"));
@@ -170,6 +207,63 @@ public class InteractionsController {
         }
     }
 
+    /**
+     * Marca varios anuncios como leídos en una sola petición (scroll del feed).
+     * Body: {"anuncioIds": [1, 2, 3]}
+     */
+    @PostMapping("/read/batch")
+    public ResponseEntity<?> markAsReadBatch(@RequestBody Map<String, List<Long>> request,
+                                            @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            List<Long> anuncioIds = request.get("anuncioIds");
+            if (anuncioIds == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "anuncioIds requerido"));
+            }
+            if (anuncioIds.size() > EstadisticasInteraccionService.MAX_ANUNCIOS_POR_LOTE) {
+                return ResponseEntity.badRequest().body(Map.of("error",
+                    "Máximo " + EstadisticasInteraccionService.MAX_ANUNCIOS_POR_LOTE + " anuncios por petición"));
+            }
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            int aceptadas = lecturaIngestionService.registrar(usuario.getId().intValue(), anuncioIds);
+            if (aceptadas == 0 && !anuncioIds.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("error", "Demasiadas lecturas pendientes, reintenta en unos segundos"));
+            }
+            
+            return ResponseEntity.ok(Map.of("message", "Marcados como leídos", "aceptadas", aceptadas));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Badges de no leídos del usuario: {"noLeidos": {aulaId: total}}
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<?> getNoLeidos(@AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            return ResponseEntity.ok(Map.of("noLeidos", noLeidosService.getNoLeidos(usuario.getId().intValue())));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/unread/{aulaId}")
+    public ResponseEntity<?> getNoLeidosDeAula(@PathVariable Integer aulaId,
+                                              @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            int total = noLeidosService.getNoLeidos(usuario.getId().intValue(), aulaId);
+            return ResponseEntity.ok(Map.of("aulaId", aulaId, "noLeidos", total));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ========== STATS COMBINADAS ==========
     
     @GetMapping("/stats/{anuncioId}")
@@ -178,41 +272,30 @@ public class InteractionsController {
         try {
             Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
             
-            // Contar likes
-            Long likesCount = entityManager
-                .createQuery("SELECT COUNT(l) FROM Like l WHERE l.anuncioId = :anuncioId", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
-            
-            // Contar comentarios
-            Long commentsCount = entityManager
-                .createQuery("SELECT COUNT(c) FROM Comentario c WHERE c.anuncioId = :anuncioId AND c.activo = true", Long.class)
-                .setParameter("anuncioId", anuncioId)
-                .getSingleResult();
-            
-            // Verificar si usuario ya dio like
-            boolean userLiked = !entityManager
-                .createQuery("SELECT l FROM Like l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Like.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList().isEmpty();
-            
-            // Verificar si usuario ya leyó
-            boolean userRead = !entityManager
-                .createQuery("SELECT l FROM Lectura l WHERE l.anuncioId = :anuncioId AND l.usuarioId = :usuarioId", Lectura.class)
-                .setParameter("anuncioId", anuncioId)
-                .setParameter("usuarioId", usuario.getId().intValue())
-                .getResultList().isEmpty();
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("likesCount", likesCount);
-            stats.put("commentsCount", commentsCount);
-            stats.put("userLiked", userLiked);
-            stats.put("userRead", userRead);
-            
+            AnuncioStatsDTO stats = estadisticasService.getStats(usuario.getId().intValue(), anuncioId);
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+
+    /**
+     * Estadísticas de varios anuncios a la vez (una página del feed) en un número fijo de consultas.
+     * Body: {"anuncioIds": [1, 2, 3]}
+     */
+    @PostMapping("/stats/batch")
+    public ResponseEntity<?> getAnuncioStatsBatch(@RequestBody Map<String, List<Long>> request,
+                                                 @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            List<Long> anuncioIds = request.get("anuncioIds");
+            if (anuncioIds == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "anuncioIds requerido"));
+            }
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            
+            return ResponseEntity.ok(Map.of("stats", estadisticasService.getStatsBatch(usuario.getId().intValue(), anuncioIds)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
\ No newline at end of file
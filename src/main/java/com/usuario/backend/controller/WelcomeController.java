@@ -1,7 +1,10 @@
 package com.usuario.backend.controller;
 
 
+import com.usuario.backend.service.health.HealthCheckService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -18,6 +21,9 @@ import java.util.Arrays;
 @RestController
 public class WelcomeController {
 
+    @Autowired
+    private HealthCheckService healthCheckService;
+
     @Value("${spring.application.name:TeckBook Backend}")
     private String applicationName;
 
@@ -129,20 +135,24 @@ public class WelcomeController {
         return ResponseEntity.ok(response);
     }
     
-    // Endpoint adicional para información de salud
+    // Endpoint adicional para información de salud (sondas reales, cacheadas unos segundos)
     @GetMapping("/api/health")
     public ResponseEntity<Map<String, Object>> health() {
+        HealthCheckService.HealthSnapshot snapshot = healthCheckService.getHealth();
+
         Map<String, Object> health = new HashMap<>();
-        health.put("status", "UP");
+        health.put("status", snapshot.getStatus());
         health.put("application", applicationName);
         health.put("timestamp", LocalDateTime.now());
+        health.put("checkedAt", snapshot.getCheckedAt());
         
-        // Verificar componentes críticos
-        Map<String, String> components = new HashMap<>();
-        components.put("database", "🟢 Connected");
-        components.put("jwt_service", "🟢 Operational");
-        components.put("oauth2", "🟢 Configured");
-        components.put("file_storage", "🟢 Available");
+        // Componentes críticos verificados por las sondas
+        Map<String, Object> components = new HashMap<>();
+        snapshot.getComponents().forEach((name, probe) -> components.put(name, Map.of(
+            "status", probe.getStatus(),
+            "latencyMs", probe.getLatencyMs(),
+            "detail", probe.getDetail() != null ? probe.getDetail() : ""
+        )));
         
         health.put("components", components);
         
@@ -155,7 +165,8 @@ public class WelcomeController {
         
         health.put("metrics", metrics);
         
-        return ResponseEntity.ok(health);
+        HttpStatus status = snapshot.isDown() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return ResponseEntity.status(status).body(health);
     }
     
     // Endpoint para información del sistema (debugging)
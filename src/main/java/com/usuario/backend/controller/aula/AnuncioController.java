@@ -1,8 +1,13 @@
 package com.usuario.backend.controller.aula;
 
+import com.usuario.backend.model.dto.AnuncioResumenDTO;
+import com.usuario.backend.model.dto.FeedPage;
 import com.usuario.backend.model.entity.Anuncio;
 import com.usuario.backend.service.aula.AnuncioService;
+import com.usuario.backend.service.storage.BlobDownloadService;
 import com.usuario.backend.service.user.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -10,8 +15,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/aulas/{aulaId}/anuncios")
@@ -22,6 +31,9 @@ public class AnuncioController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private BlobDownloadService blobDownloadService;
+
     // GET: anuncios de un aula (solo para usuarios autorizados)
     @GetMapping
     public List<Anuncio> getAnunciosDeAula(@PathVariable Integer aulaId, Principal principal) {
@@ -34,16 +46,82 @@ public class AnuncioController {
         return anuncios;
     }
 
+    // GET: feed paginado por cursor (proyección ligera, sin contenido completo)
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeedDeAula(
+        @PathVariable Integer aulaId,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit,
+        Principal principal
+    ) {
+        var usuario = usuarioService.findByCorreoInstitucional(principal.getName());
+        try {
+            FeedPage<AnuncioResumenDTO> page = anuncioService.getFeedDeAula(
+                usuario.getId(), usuario.getRol().toString(), aulaId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET: detalle completo de un anuncio del aula
+    @GetMapping("/{anuncioId}")
+    public ResponseEntity<?> getAnuncioDeAula(
+        @PathVariable Integer aulaId,
+        @PathVariable Long anuncioId,
+        Principal principal
+    ) {
+        var usuario = usuarioService.findByCorreoInstitucional(principal.getName());
+        try {
+            Anuncio anuncio = anuncioService.getAnuncioDeAula(usuario.getId(), usuario.getRol().toString(), aulaId, anuncioId);
+            if (anuncio == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Anuncio no encontrado"));
+            }
+            return ResponseEntity.ok(anuncio);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // GET: descarga del adjunto (Range/reanudable, ETag por hash); solo con acceso al aula
+    @GetMapping("/{anuncioId}/archivo")
+    public ResponseEntity<?> descargarAdjunto(
+        @PathVariable Integer aulaId,
+        @PathVariable Long anuncioId,
+        Principal principal,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        var usuario = usuarioService.findByCorreoInstitucional(principal.getName());
+        try {
+            Anuncio anuncio = anuncioService.getAnuncioDeAula(usuario.getId(), usuario.getRol().toString(), aulaId, anuncioId);
+            if (anuncio == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Anuncio no encontrado"));
+            }
+            Optional<Path> ruta = anuncioService.getRutaAdjunto(anuncio);
+            if (ruta.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "El anuncio no tiene archivo adjunto"));
+            }
+            blobDownloadService.servir(ruta.get(), anuncio.getArchivoHash(), anuncio.getArchivoNombre(),
+                    anuncio.getArchivoTipo(), request, response);
+            return null; // La respuesta ya se escribió directamente
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // POST: crear un nuevo anuncio en un aula (con soporte para archivo y tipo)
     @PostMapping(consumes = { MediaType.MULTIPART_FORM_DATA_VALUE })
-    public ResponseEntity<Anuncio> crearAnuncioConArchivo(
+    public ResponseEntity<?> crearAnuncioConArchivo(
         @PathVariable Integer aulaId,
         @RequestPart("titulo") String titulo,
         @RequestPart("contenido") String contenido,
         @RequestPart("tipo") String tipo,
         @RequestPart(value = "archivo", required = false) MultipartFile archivo,
         Principal principal
-    ) {
+    ) throws IOException {
         String email = principal.getName();
         var usuario = usuarioService.findByCorreoInstitucional(email);
         Long usuarioId = usuario.getId();
@@ -52,14 +130,17 @@ public class AnuncioController {
         anuncio.setTitulo(titulo);
         anuncio.setContenido(contenido);
         anuncio.setTipo(tipo); // Ahora tipo es String
-        if (archivo != null && !archivo.isEmpty()) {
-            anuncio.setArchivoNombre(archivo.getOriginalFilename());
-            anuncio.setArchivoTipo(archivo.getContentType());
-            anuncio.setArchivoTamaño(archivo.getSize());
-            // Aquí podrías guardar el archivo en disco o en la nube
-        }
         anuncio.setAutorId(usuarioId != null ? usuarioId.intValue() : null);
-        Anuncio creado = anuncioService.crearAnuncio(usuarioId, rol, aulaId, anuncio);
-        return new ResponseEntity<>(creado, HttpStatus.CREATED);
+        try {
+            Anuncio creado = archivo != null && !archivo.isEmpty()
+                    ? anuncioService.crearAnuncioConAdjunto(usuarioId, rol, aulaId, anuncio, archivo)
+                    : anuncioService.crearAnuncio(usuarioId, rol, aulaId, anuncio);
+            return new ResponseEntity<>(creado, HttpStatus.CREATED);
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // Adjunto rechazado por su contenido (tipo o dimensiones)
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 }
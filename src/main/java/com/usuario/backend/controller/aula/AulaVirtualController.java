@@ -1,9 +1,12 @@
 package com.usuario.backend.controller.aula;
 
+import com.usuario.backend.model.dto.EngagementAnuncioDTO;
 import com.usuario.backend.model.entity.AulaVirtual;
 import com.usuario.backend.model.entity.AulaEstudiante;
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.service.aula.AulaVirtualService;
+import com.usuario.backend.service.interaccion.EngagementService;
+import com.usuario.backend.service.upload.ProfileThumbnailService;
 import com.usuario.backend.service.user.UsuarioService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +35,12 @@ public class AulaVirtualController {
     @Autowired
     private UsuarioService usuarioService;
 
+    @Autowired
+    private EngagementService engagementService;
+
+    @Autowired
+    private ProfileThumbnailService profileThumbnailService;
+
     /**
      * 🔥 ENDPOINT PRINCIPAL: Obtiene aulas del usuario autenticado
      */
@@ -307,10 +316,14 @@ public class AulaVirtualController {
                     map.put("nombre", est.getNombre());
                     map.put("apellidos", est.getApellidos());
                     map.put("email", est.getCorreoInstitucional());
+                    map.put("profileImageUrl", est.getProfileImageUrl() != null ? est.getProfileImageUrl() : "");
+                    map.put("srcset", profileThumbnailService.srcset(est.getProfileImageUrl()));
                 } else {
                     map.put("nombre", "Sin nombre");
                     map.put("apellidos", "");
                     map.put("email", "");
+                    map.put("profileImageUrl", "");
+                    map.put("srcset", Map.of());
                 }
                 return map;
             }).toList();
@@ -322,6 +335,38 @@ public class AulaVirtualController {
         }
     }
 
+    /**
+     * 📈 Analíticas de engagement por anuncio (solo profesor del aula)
+     */
+    @GetMapping("/{aulaId}/analytics")
+    public ResponseEntity<?> getAnalyticsAula(@PathVariable Long aulaId, @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            if (userDetails == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(Map.of("error", "Usuario no autenticado"));
+            }
+            Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+            if (usuario == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Usuario no encontrado"));
+            }
+            String rolString = usuario.getRol().toString();
+            boolean esProfesorDelAula = "PROFESOR".equals(rolString)
+                    && aulaVirtualService.puedeAccederAAula(usuario.getId(), rolString, aulaId);
+            if (!esProfesorDelAula) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Solo el profesor del aula puede ver sus analíticas"));
+            }
+
+            List<EngagementAnuncioDTO> anuncios = engagementService.getPanelDeAula(aulaId.intValue());
+            return ResponseEntity.ok(Map.of("aulaId", aulaId, "anuncios", anuncios));
+        } catch (Exception e) {
+            logger.error("Error al obtener analíticas del aula {}: {}", aulaId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al obtener analíticas", "message", e.getMessage()));
+        }
+    }
+
     /**
      * Eliminar (desactivar) integrante de un aula (solo profesor del aula)
      */
@@ -0,0 +1,36 @@
+package com.usuario.backend.controller.aula;
+
+import com.usuario.backend.service.aula.AulaVirtualService;
+import com.usuario.backend.service.interaccion.EventosAulaService;
+import com.usuario.backend.service.user.UsuarioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/aulas/{aulaId}/eventos")
+public class EventosAulaController {
+
+    @Autowired
+    private EventosAulaService eventosAulaService;
+
+    @Autowired
+    private AulaVirtualService aulaVirtualService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    // GET: stream SSE de likes, comentarios y anuncios nuevos del aula (frames coalescidos)
+    @GetMapping
+    public ResponseEntity<?> suscribir(@PathVariable Integer aulaId, Principal principal) {
+        var usuario = usuarioService.findByCorreoInstitucional(principal.getName());
+        if (!aulaVirtualService.puedeAccederAAula(usuario.getId(), usuario.getRol().toString(), aulaId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "No tiene acceso a esta aula"));
+        }
+        return ResponseEntity.ok(eventosAulaService.suscribir(aulaId));
+    }
+}
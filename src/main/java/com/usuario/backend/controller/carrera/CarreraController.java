@@ -397,7 +397,7 @@ public ResponseEntity<?> getCarrerasActivasByDepartamento(@PathVariable Long dep
     public ResponseEntity<?> healthCheck() {
         try {
             // Verificar que el servicio funciona
-            long count = carreraService.getAllCarrerasActivas().size();
+            long count = carreraService.countCarrerasActivas();
             
             return ResponseEntity.ok(Map.of(
                 "service", "CarreraController",
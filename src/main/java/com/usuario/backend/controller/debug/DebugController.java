@@ -1,6 +1,20 @@
 package com.usuario.backend.controller.debug;
 
 import com.usuario.backend.security.jwt.JwtTokenProvider;
+import com.usuario.backend.service.aula.AnuncioService;
+import com.usuario.backend.service.interaccion.ContadorInteraccionesService;
+import com.usuario.backend.service.interaccion.EventosAulaService;
+import com.usuario.backend.service.interaccion.LecturaIngestionService;
+import com.usuario.backend.service.interaccion.LikedSetService;
+import com.usuario.backend.service.storage.BlobDedupService;
+import com.usuario.backend.service.storage.BlobStore;
+import com.usuario.backend.service.upload.CloudinaryService;
+import com.usuario.backend.service.upload.ImageNormalizationService;
+import com.usuario.backend.service.upload.OrphanImageCollector;
+import com.usuario.backend.service.upload.ProfileThumbnailService;
+import com.usuario.backend.service.upload.UploadValidator;
+import com.usuario.backend.service.upload.ProfileUploadJobService;
+import com.usuario.backend.service.interaccion.NoLeidosService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +37,48 @@ public class DebugController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private AnuncioService anuncioService;
+
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private LecturaIngestionService lecturaIngestionService;
+
+    @Autowired
+    private NoLeidosService noLeidosService;
+
+    @Autowired
+    private EventosAulaService eventosAulaService;
+
+    @Autowired
+    private LikedSetService likedSetService;
+
+    @Autowired
+    private CloudinaryService cloudinaryService;
+
+    @Autowired
+    private ImageNormalizationService imageNormalizationService;
+
+    @Autowired
+    private ProfileUploadJobService profileUploadJobService;
+
+    @Autowired
+    private BlobDedupService blobDedupService;
+
+    @Autowired
+    private OrphanImageCollector orphanImageCollector;
+
+    @Autowired
+    private ProfileThumbnailService profileThumbnailService;
+
+    @Autowired
+    private UploadValidator uploadValidator;
+
+    @Autowired
+    private BlobStore blobStore;
+
     @GetMapping("/login")
     public ResponseEntity<Map<String, String>> login(@RequestParam(required = false) String error) {
         logger.info("Login page accessed. Error: {}", error);
@@ -65,4 +121,45 @@ public class DebugController {
             return ResponseEntity.badRequest().body(error);
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/api/debug/feed-cache")
+    public ResponseEntity<Map<String, Object>> getFeedCacheStats() {
+        return ResponseEntity.ok(Map.of(
+            "caches", anuncioService.getFeedCacheStats(),
+            "likedSets", likedSetService.getCacheStats(),
+            "timestamp", System.currentTimeMillis()
+        ));
+    }
+
+    @GetMapping("/api/debug/counters")
+    public ResponseEntity<Map<String, Object>> getCounterStats() {
+        return ResponseEntity.ok(contadorService.getStats());
+    }
+
+    @GetMapping("/api/debug/lecturas")
+    public ResponseEntity<Map<String, Object>> getLecturaStats() {
+        return ResponseEntity.ok(Map.of(
+            "ingesta", lecturaIngestionService.getStats(),
+            "cacheNoLeidos", noLeidosService.getCacheStats()
+        ));
+    }
+
+    @GetMapping("/api/debug/sse")
+    public ResponseEntity<Map<String, Object>> getSseStats() {
+        return ResponseEntity.ok(eventosAulaService.getStats());
+    }
+
+    @GetMapping("/api/debug/uploads")
+    public ResponseEntity<Map<String, Object>> getUploadStats() {
+        return ResponseEntity.ok(Map.of(
+            "subidas", cloudinaryService.getStats(),
+            "normalizacion", imageNormalizationService.getStats(),
+            "asincronas", profileUploadJobService.getStats(),
+            "dedup", blobDedupService.getStats(),
+            "huerfanas", orphanImageCollector.getStats(),
+            "miniaturas", profileThumbnailService.getStats(),
+            "validacion", uploadValidator.getStats(),
+            "almacenamiento", blobStore.getStats()
+        ));
+    }
+}
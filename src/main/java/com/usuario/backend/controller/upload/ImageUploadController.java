@@ -1,7 +1,9 @@
 package com.usuario.backend.controller.upload;
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.service.upload.CloudinaryService;
+import com.usuario.backend.service.upload.OrphanImageCollector;
 import com.usuario.backend.service.upload.ProfileImageService;
+import com.usuario.backend.service.upload.ProfileUploadJobService;
 import com.usuario.backend.service.user.UsuarioService;
 
 import org.slf4j.Logger;
@@ -33,6 +35,12 @@ public class ImageUploadController {
     
     @Autowired
     private UsuarioService usuarioService;
+
+    @Autowired
+    private ProfileUploadJobService profileUploadJobService;
+
+    @Autowired
+    private OrphanImageCollector orphanImageCollector;
     /**
      * REFACTORIZADO: Subir imagen de perfil usando ProfileImageService
      * SOLUCIÓN AL BUG: Garantiza persistencia inmediata en base de datos
@@ -74,6 +82,9 @@ public ResponseEntity<?> uploadProfileImage(
     }
     
     try {
+        // Validar el contenido real (tipo y dimensiones) antes de gastar una subida
+        profileImageService.validateImageFile(file);
+
         // Buscar el usuario en la base de datos
         Usuario usuario = usuarioService.findByCorreoInstitucional(username);
         if (usuario == null) {
@@ -88,28 +99,13 @@ public ResponseEntity<?> uploadProfileImage(
         String imageUrl = cloudinaryService.uploadImage(file, String.valueOf(usuario.getId()));
         logger.info("✅ Imagen subida a Cloudinary: {}", imageUrl);
         
-        // 🔧 FIX: Guardar en BD y verificar
-        String previousUrl = usuario.getProfileImageUrl();
+        // 🔧 FIX: Guardar en BD con la fila bloqueada; previousUrl es la URL que se sustituyó
+        // de verdad, aunque otra subida del mismo usuario haya terminado entre medias
+        String previousUrl = usuarioService.reemplazarProfileImageUrl(usuario.getId(), imageUrl);
         logger.info("URL anterior: {}", previousUrl);
         
-        usuario.setProfileImageUrl(imageUrl);
-        Usuario usuarioActualizado = usuarioService.actualizarUsuario(usuario);
-        
-        // 🔍 VERIFICACIÓN CRÍTICA
-        logger.info("✅ Usuario actualizado, nueva URL: {}", usuarioActualizado.getProfileImageUrl());
-        
-        // Verificar que se guardó correctamente
-        Usuario usuarioVerificacion = usuarioService.findByCorreoInstitucional(username);
-        logger.info("🔍 Verificación desde BD: {}", usuarioVerificacion.getProfileImageUrl());
-        
-        if (usuarioVerificacion.getProfileImageUrl() == null || 
-            !usuarioVerificacion.getProfileImageUrl().equals(imageUrl)) {
-            logger.error("❌ ERROR: La imagen NO se guardó en la base de datos!");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Error al guardar la imagen en la base de datos"));
-        }
-        
         logger.info("✅ Imagen guardada exitosamente en BD para: {}", username);
+        orphanImageCollector.encolarSiReemplazada(previousUrl, imageUrl);
         
         // Devolver la URL de la imagen
         Map<String, Object> response = new HashMap<>();
@@ -121,6 +117,15 @@ public ResponseEntity<?> uploadProfileImage(
         
         return ResponseEntity.ok(response);
         
+    } catch (IllegalArgumentException e) {
+        // Contenido no válido o dimensiones fuera de límite
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    } catch (IllegalStateException e) {
+        // Límite de subidas concurrentes alcanzado
+        logger.warn("Subida rechazada para {}: {}", username, e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(Map.of("error", e.getMessage()));
     } catch (Exception e) {
         logger.error("❌ Error al procesar imagen: {}", e.getMessage(), e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -128,6 +133,87 @@ public ResponseEntity<?> uploadProfileImage(
     }
 }
     
+    /**
+     * 📤 Subida asíncrona: guarda el archivo en disco y responde 202 con el jobId; el estado
+     * se consulta en /profile-image/jobs/{jobId}
+     */
+    @PostMapping("/profile-image/async")
+    public ResponseEntity<?> uploadProfileImageAsync(
+            @RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "No autenticado"));
+        }
+
+        String username = userDetails.getUsername();
+        try {
+            profileImageService.validateImageFile(file);
+
+            Usuario usuario = usuarioService.findByCorreoInstitucional(username);
+            if (usuario == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Usuario no encontrado"));
+            }
+
+            ProfileUploadJobService.Job job = profileUploadJobService.submit(file, usuario);
+            String statusUrl = "/api/upload/profile-image/jobs/" + job.getId();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header("Location", statusUrl)
+                    .body(Map.of(
+                        "jobId", job.getId(),
+                        "status", job.getStatus(),
+                        "statusUrl", statusUrl
+                    ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            logger.warn("Subida asíncrona rechazada para {}: {}", username, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "5")
+                    .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("❌ Error al encolar imagen para {}: {}", username, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Error al procesar la imagen: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 🔍 Estado de una subida asíncrona (solo para el dueño del trabajo)
+     */
+    @GetMapping("/profile-image/jobs/{jobId}")
+    public ResponseEntity<?> getUploadJob(
+            @PathVariable String jobId,
+            @AuthenticationPrincipal UserDetails userDetails) {
+
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "No autenticado"));
+        }
+
+        Usuario usuario = usuarioService.findByCorreoInstitucional(userDetails.getUsername());
+        ProfileUploadJobService.Job job = usuario != null
+                ? profileUploadJobService.getJob(jobId, usuario.getId())
+                : null;
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Trabajo no encontrado"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus());
+        response.put("intentos", job.getIntentos());
+        response.put("imageUrl", job.getImageUrl());
+        response.put("error", job.getError());
+        response.put("createdAt", job.getCreatedAt());
+        response.put("updatedAt", job.getUpdatedAt());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * NUEVO: Obtener imagen de perfil actual
      * SOLUCIÓN AL BUG: Siempre consulta la base de datos
@@ -197,6 +283,8 @@ public ResponseEntity<?> uploadProfileImage(
             "timestamp", System.currentTimeMillis(),
             "endpoints", Map.of(
                 "upload", "POST /api/upload/profile-image",
+                "uploadAsync", "POST /api/upload/profile-image/async",
+                "uploadJob", "GET /api/upload/profile-image/jobs/{jobId}",
                 "current", "GET /api/upload/profile-image/current", 
                 "delete", "DELETE /api/upload/profile-image"
             )
@@ -0,0 +1,43 @@
+package com.usuario.backend.controller.upload;
+
+import com.usuario.backend.service.storage.BlobStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🖼️ Sirve las imágenes públicas (fotos de perfil) cuando el BlobStore es local. Las claves son
+ * direccionadas por contenido, así que la respuesta se puede cachear como inmutable.
+ */
+@RestController
+public class PublicBlobController {
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${app.storage.local.carpetas-publicas:tecbook_profiles}")
+    private Set<String> carpetasPublicas;
+
+    @GetMapping("/api/public/blobs/{carpeta}/{archivo}")
+    public ResponseEntity<Resource> getBlob(@PathVariable String carpeta, @PathVariable String archivo) {
+        if (!carpetasPublicas.contains(carpeta)) {
+            return ResponseEntity.notFound().build();
+        }
+        return blobStore.resource(carpeta + "/" + archivo)
+                .map(resource -> ResponseEntity.ok()
+                        .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                        .body(resource))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,28 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección ligera de un anuncio para listados: sin el contenido completo ni las etiquetas.
+ * El contenido completo se obtiene desde el endpoint de detalle.
+ */
+public record AnuncioResumenDTO(
+        Long id,
+        String titulo,
+        String extracto,
+        String tipo,
+        String categoria,
+        String archivoNombre,
+        String archivoTipo,
+        Integer totalLikes,
+        Integer totalComentarios,
+        Integer aulaId,
+        Integer autorId,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime fechaPublicacion,
+        Boolean fijado,
+        Boolean esGeneral,
+        Boolean permiteComentarios
+) {}
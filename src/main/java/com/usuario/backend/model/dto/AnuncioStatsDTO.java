@@ -0,0 +1,6 @@
+package com.usuario.backend.model.dto;
+
+/**
+ * Estadísticas de interacción de un anuncio desde el punto de vista del usuario actual
+ */
+public record AnuncioStatsDTO(Long anuncioId, int likesCount, int commentsCount, boolean userLiked, boolean userRead) {}
@@ -0,0 +1,26 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nodo del hilo de comentarios: el comentario y sus respuestas ya anidadas
+ */
+public record ComentarioDTO(
+        Long id,
+        Long comentarioPadreId,
+        String contenido,
+        Integer usuarioId,
+        String autor,
+        String autorImagen,
+        // Miniaturas de la foto del autor (lado → URL), se rellena tras la consulta
+        Map<String, String> autorSrcset,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime fechaCreacion,
+        // Solo en raíces: respuestas del hilo, aunque no todas vengan en respuestas
+        Integer totalRespuestas,
+        List<ComentarioDTO> respuestas
+) {}
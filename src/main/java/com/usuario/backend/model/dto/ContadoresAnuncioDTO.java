@@ -0,0 +1,6 @@
+package com.usuario.backend.model.dto;
+
+/**
+ * Contadores desnormalizados de un anuncio (likes y comentarios activos)
+ */
+public record ContadoresAnuncioDTO(Long anuncioId, Integer totalLikes, Integer totalComentarios) {}
@@ -0,0 +1,32 @@
+package com.usuario.backend.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del panel de analíticas de un aula; los porcentajes se derivan de los totales
+ */
+public record EngagementAnuncioDTO(
+        Long anuncioId,
+        String titulo,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        LocalDateTime fechaPublicacion,
+        int alcance,
+        int lecturas,
+        int likes,
+        double porcentajeLectura,
+        double tasaLikes
+) {
+
+    // Constructor usado por la proyección JPQL
+    public EngagementAnuncioDTO(Long anuncioId, String titulo, LocalDateTime fechaPublicacion,
+                                Integer alcance, Integer lecturas, Integer likes) {
+        this(anuncioId, titulo, fechaPublicacion, alcance, lecturas, likes,
+             porcentaje(lecturas, alcance), porcentaje(likes, alcance));
+    }
+
+    private static double porcentaje(int parte, int total) {
+        return total > 0 ? Math.round(parte * 1000.0 / total) / 10.0 : 0.0;
+    }
+}
@@ -0,0 +1,14 @@
+package com.usuario.backend.model.dto;
+
+/**
+ * Cambios de un anuncio acumulados en una ventana de coalescencia del stream SSE.
+ * Los totales son los vigentes al emitir el frame; los deltas, lo ocurrido en la ventana.
+ */
+public record EventoAnuncioDTO(
+        Long anuncioId,
+        boolean nuevo,
+        int likesDelta,
+        int totalLikes,
+        int nuevosComentarios,
+        int totalComentarios
+) {}
@@ -0,0 +1,35 @@
+package com.usuario.backend.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset sobre (fecha, id).
+ * Se serializa como Base64 URL-safe de "fechaISO|id" para que el cliente no dependa del formato.
+ */
+public record FeedCursor(LocalDateTime fecha, Long id) {
+
+    private static final String SEPARADOR = "|";
+
+    public String encode() {
+        String raw = fecha + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente; null o vacío significa "primera página"
+     */
+    public static FeedCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARADOR);
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, idx)), Long.parseLong(raw.substring(idx + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
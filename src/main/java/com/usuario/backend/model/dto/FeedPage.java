@@ -0,0 +1,13 @@
+package com.usuario.backend.model.dto;
+
+import java.util.List;
+
+/**
+ * Página de resultados paginada por cursor. {@code nextCursor} es null en la última página.
+ */
+public record FeedPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+
+    public static <T> FeedPage<T> empty() {
+        return new FeedPage<>(List.of(), null, false);
+    }
+}
@@ -2,11 +2,17 @@ package com.usuario.backend.model.entity;
 
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "anuncios")
+@Table(name = "anuncios", indexes = {
+    // Feed por aula paginado por cursor (fecha_publicacion, id)
+    @Index(name = "idx_anuncios_aula_feed", columnList = "aula_id, activo, fecha_publicacion, id"),
+    // Feed de anuncios generales
+    @Index(name = "idx_anuncios_general_feed", columnList = "es_general, activo, fecha_publicacion, id")
+})
 public class Anuncio {
     
     @Id
@@ -33,6 +39,16 @@ public class Anuncio {
     
     @Column(name = "archivo_tamaño")
     private Long archivoTamaño;
+
+    // Clave del adjunto en el BlobStore (no se expone en la API)
+    @JsonIgnore
+    @Column(name = "archivo_clave", length = 300)
+    private String archivoClave;
+
+    // SHA-256 del adjunto (ETag fuerte de la descarga)
+    @JsonIgnore
+    @Column(name = "archivo_hash", length = 64)
+    private String archivoHash;
     
     @Column(length = 100)
     private String categoria;
@@ -105,6 +121,12 @@ public class Anuncio {
     
     public Long getArchivoTamaño() { return archivoTamaño; }
     public void setArchivoTamaño(Long archivoTamaño) { this.archivoTamaño = archivoTamaño; }
+
+    public String getArchivoClave() { return archivoClave; }
+    public void setArchivoClave(String archivoClave) { this.archivoClave = archivoClave; }
+
+    public String getArchivoHash() { return archivoHash; }
+    public void setArchivoHash(String archivoHash) { this.archivoHash = archivoHash; }
     
     public String getCategoria() { return categoria; }
     public void setCategoria(String categoria) { this.categoria = categoria; }
@@ -0,0 +1,91 @@
+package com.usuario.backend.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Índice de contenido de los archivos guardados: un blob por (backend, carpeta, sha256) con
+ * contador de referencias. Permite reutilizar un archivo ya subido y borrarlo solo cuando
+ * nadie lo usa (ver BlobDedupService).
+ */
+@Entity
+@Table(name = "blobs", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_blobs_contenido", columnNames = {"backend", "carpeta", "sha256"})
+}, indexes = {
+    // Liberar por clave (la URL guardada en usuarios/anuncios lleva a la clave)
+    @Index(name = "idx_blobs_clave", columnList = "backend, clave")
+})
+public class BlobAlmacenado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "backend", nullable = false, length = 20)
+    private String backend;
+
+    @Column(name = "carpeta", nullable = false, length = 50)
+    private String carpeta;
+
+    @Column(name = "sha256", nullable = false, length = 64)
+    private String sha256;
+
+    @Column(name = "clave", nullable = false, length = 300)
+    private String clave;
+
+    @Column(name = "url", length = 500)
+    private String url;
+
+    @Column(name = "tamano", nullable = false)
+    private Long tamano;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    // Variantes guardadas junto al blob (p. ej. "32,64,300" para las miniaturas), separadas por comas
+    @Column(name = "variantes", length = 100)
+    private String variantes;
+
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias = 1;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    // Constructor por defecto
+    public BlobAlmacenado() {}
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBackend() { return backend; }
+    public void setBackend(String backend) { this.backend = backend; }
+
+    public String getCarpeta() { return carpeta; }
+    public void setCarpeta(String carpeta) { this.carpeta = carpeta; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+
+    public Long getTamano() { return tamano; }
+    public void setTamano(Long tamano) { this.tamano = tamano; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public String getVariantes() { return variantes; }
+    public void setVariantes(String variantes) { this.variantes = variantes; }
+
+    public Integer getReferencias() { return referencias; }
+    public void setReferencias(Integer referencias) { this.referencias = referencias; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+}
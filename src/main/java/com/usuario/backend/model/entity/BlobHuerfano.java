@@ -0,0 +1,64 @@
+package com.usuario.backend.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Cola persistente de archivos que dejaron de usarse (fotos de perfil reemplazadas o
+ * eliminadas). Los borra en lotes OrphanImageCollector, fuera del camino de la petición.
+ */
+@Entity
+@Table(name = "blobs_huerfanos", indexes = {
+    // Lote de la recolección: los más antiguos primero
+    @Index(name = "idx_huerfanos_pendientes", columnList = "backend, fecha_encolado, id")
+})
+public class BlobHuerfano {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "backend", nullable = false, length = 20)
+    private String backend;
+
+    @Column(name = "clave", nullable = false, length = 300)
+    private String clave;
+
+    // Se reprograma al fallar un borrado, así el reintento espera otro periodo de gracia
+    @Column(name = "fecha_encolado", nullable = false)
+    private LocalDateTime fechaEncolado;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    // Constructor por defecto
+    public BlobHuerfano() {}
+
+    public BlobHuerfano(String backend, String clave) {
+        this.backend = backend;
+        this.clave = clave;
+        this.fechaEncolado = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getBackend() { return backend; }
+    public void setBackend(String backend) { this.backend = backend; }
+
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+
+    public LocalDateTime getFechaEncolado() { return fechaEncolado; }
+    public void setFechaEncolado(LocalDateTime fechaEncolado) { this.fechaEncolado = fechaEncolado; }
+
+    public Integer getIntentos() { return intentos; }
+    public void setIntentos(Integer intentos) { this.intentos = intentos; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+}
@@ -5,7 +5,12 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comentarios")
+@Table(name = "comentarios", indexes = {
+    // Página de comentarios raíz de un anuncio en orden (fecha_creacion, id)
+    @Index(name = "idx_comentarios_hilo", columnList = "anuncio_id, comentario_padre_id, activo, fecha_creacion, id"),
+    // Descenso a las respuestas de cada comentario
+    @Index(name = "idx_comentarios_padre", columnList = "comentario_padre_id")
+})
 public class Comentario {
     
     @Id
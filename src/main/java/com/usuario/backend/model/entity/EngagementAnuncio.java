@@ -0,0 +1,61 @@
+package com.usuario.backend.model.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Modelo de lectura para el panel del profesor: alcance, lecturas y likes de estudiantes
+ * inscritos por anuncio. Lo mantienen los caminos de escritura y un reconciliador
+ * periódico (ver EngagementService).
+ */
+@Entity
+@Table(name = "engagement_anuncios", indexes = {
+    // Panel de analíticas de un aula
+    @Index(name = "idx_engagement_aula", columnList = "aula_id, anuncio_id")
+})
+public class EngagementAnuncio {
+
+    @Id
+    @Column(name = "anuncio_id")
+    private Long anuncioId;
+
+    @Column(name = "aula_id", nullable = false)
+    private Integer aulaId;
+
+    // Estudiantes activos del aula
+    @Column(name = "alcance", nullable = false)
+    private Integer alcance = 0;
+
+    // Estudiantes activos que leyeron el anuncio
+    @Column(name = "lecturas", nullable = false)
+    private Integer lecturas = 0;
+
+    // Estudiantes activos que dieron like
+    @Column(name = "likes", nullable = false)
+    private Integer likes = 0;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Constructor por defecto
+    public EngagementAnuncio() {}
+
+    // Getters y Setters
+    public Long getAnuncioId() { return anuncioId; }
+    public void setAnuncioId(Long anuncioId) { this.anuncioId = anuncioId; }
+
+    public Integer getAulaId() { return aulaId; }
+    public void setAulaId(Integer aulaId) { this.aulaId = aulaId; }
+
+    public Integer getAlcance() { return alcance; }
+    public void setAlcance(Integer alcance) { this.alcance = alcance; }
+
+    public Integer getLecturas() { return lecturas; }
+    public void setLecturas(Integer lecturas) { this.lecturas = lecturas; }
+
+    public Integer getLikes() { return likes; }
+    public void setLikes(Integer likes) { this.likes = likes; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
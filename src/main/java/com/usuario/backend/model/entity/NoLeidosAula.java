@@ -0,0 +1,42 @@
+package com.usuario.backend.model.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Tabla resumen: anuncios sin leer de un usuario en un aula.
+ * Se mantiene incrementalmente (ver NoLeidosService), nunca con anti-join en cada carga.
+ */
+@Entity
+@Table(name = "no_leidos_aula",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"usuario_id", "aula_id"}))
+public class NoLeidosAula {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Integer usuarioId;
+
+    @Column(name = "aula_id", nullable = false)
+    private Integer aulaId;
+
+    @Column(name = "total", nullable = false)
+    private Integer total = 0;
+
+    // Constructor por defecto
+    public NoLeidosAula() {}
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Integer getUsuarioId() { return usuarioId; }
+    public void setUsuarioId(Integer usuarioId) { this.usuarioId = usuarioId; }
+
+    public Integer getAulaId() { return aulaId; }
+    public void setAulaId(Integer aulaId) { this.aulaId = aulaId; }
+
+    public Integer getTotal() { return total; }
+    public void setTotal(Integer total) { this.total = total; }
+}
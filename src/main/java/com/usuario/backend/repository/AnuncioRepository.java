@@ -1,12 +1,83 @@
 package com.usuario.backend.repository;
 
+import com.usuario.backend.model.dto.AnuncioResumenDTO;
+import com.usuario.backend.model.dto.ContadoresAnuncioDTO;
 import com.usuario.backend.model.entity.Anuncio;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AnuncioRepository extends JpaRepository<Anuncio, Long> {
     List<Anuncio> findByAulaIdAndActivoTrueOrderByFechaPublicacionDesc(Integer aulaId);
     List<Anuncio> findByEsGeneralTrueAndActivoTrueOrderByFechaPublicacionDesc();
+
+    // ✅ FEED PAGINADO POR CURSOR (usa idx_anuncios_aula_feed)
+    String RESUMEN_SELECT = "SELECT new com.usuario.backend.model.dto.AnuncioResumenDTO(" +
+            "a.id, a.titulo, SUBSTRING(a.contenido, 1, 280), a.tipo, a.categoria, a.archivoNombre, a.archivoTipo, " +
+            "a.totalLikes, a.totalComentarios, a.aulaId, a.autorId, a.fechaPublicacion, a.fijado, a.esGeneral, " +
+            "a.permiteComentarios) FROM Anuncio a ";
+
+    @Query(RESUMEN_SELECT +
+           "WHERE a.aulaId = :aulaId AND a.activo = true " +
+           "ORDER BY a.fechaPublicacion DESC, a.id DESC")
+    List<AnuncioResumenDTO> findFeedDeAula(@Param("aulaId") Integer aulaId, Pageable pageable);
+
+    @Query(RESUMEN_SELECT +
+           "WHERE a.aulaId = :aulaId AND a.activo = true " +
+           "AND (a.fechaPublicacion < :fecha OR (a.fechaPublicacion = :fecha AND a.id < :id)) " +
+           "ORDER BY a.fechaPublicacion DESC, a.id DESC")
+    List<AnuncioResumenDTO> findFeedDeAulaAntesDe(@Param("aulaId") Integer aulaId,
+                                                  @Param("fecha") LocalDateTime fecha,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+
+    // ✅ FEED DE ANUNCIOS GENERALES (usa idx_anuncios_general_feed)
+    @Query(RESUMEN_SELECT +
+           "WHERE a.esGeneral = true AND a.activo = true " +
+           "ORDER BY a.fechaPublicacion DESC, a.id DESC")
+    List<AnuncioResumenDTO> findFeedGeneral(Pageable pageable);
+
+    @Query(RESUMEN_SELECT +
+           "WHERE a.esGeneral = true AND a.activo = true " +
+           "AND (a.fechaPublicacion < :fecha OR (a.fechaPublicacion = :fecha AND a.id < :id)) " +
+           "ORDER BY a.fechaPublicacion DESC, a.id DESC")
+    List<AnuncioResumenDTO> findFeedGeneralAntesDe(@Param("fecha") LocalDateTime fecha,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    // ✅ EXPORTACIÓN COMPLETA EN STREAMING (cursor de solo lectura, fila a fila)
+    // fetchSize = Integer.MIN_VALUE hace que MySQL Connector/J transmita las filas en lugar de cargarlas todas
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT a FROM Anuncio a ORDER BY a.id")
+    Stream<Anuncio> streamTodos();
+
+    // ✅ LISTADO ADMINISTRATIVO PAGINADO POR ID
+    List<Anuncio> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // ✅ CONTADORES DESNORMALIZADOS (mantenidos por ContadorInteraccionesService)
+    @Query("SELECT new com.usuario.backend.model.dto.ContadoresAnuncioDTO(a.id, a.totalLikes, a.totalComentarios) " +
+           "FROM Anuncio a WHERE a.id = :id")
+    ContadoresAnuncioDTO findContadoresById(@Param("id") Long id);
+
+    @Query("SELECT new com.usuario.backend.model.dto.ContadoresAnuncioDTO(a.id, a.totalLikes, a.totalComentarios) " +
+           "FROM Anuncio a WHERE a.id IN :ids")
+    List<ContadoresAnuncioDTO> findContadoresByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ✅ DETALLE DE UN ANUNCIO DENTRO DE SU AULA
+    Anuncio findByIdAndAulaIdAndActivoTrue(Long id, Integer aulaId);
 }
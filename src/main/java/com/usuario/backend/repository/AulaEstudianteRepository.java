@@ -15,6 +15,10 @@ public interface AulaEstudianteRepository extends JpaRepository<AulaEstudiante,
     @Query("SELECT ae.aulaId FROM AulaEstudiante ae WHERE ae.estudianteId = :estudianteId AND ae.estado = 'activo'")
     List<Long> findAulaIdsByEstudianteId(@Param("estudianteId") Long estudianteId);
     
+    // ✅ IDS DE ESTUDIANTES ACTIVOS DE UN AULA
+    @Query("SELECT ae.estudianteId FROM AulaEstudiante ae WHERE ae.aulaId = :aulaId AND ae.estado = 'activo'")
+    List<Long> findEstudianteIdsByAulaId(@Param("aulaId") Long aulaId);
+    
     // ✅ BUSCAR ESTUDIANTES DE UN AULA
     List<AulaEstudiante> findByAulaIdAndEstado(Long aulaId, AulaEstudiante.EstadoEstudiante estado);
     
@@ -16,6 +16,9 @@ public interface AulaVirtualRepository extends JpaRepository<AulaVirtual, Long>
     List<AulaVirtual> findByEstado(String estado);
     AulaVirtual findByCodigoAcceso(String codigoAcceso);
     
+    @Query("SELECT av.id FROM AulaVirtual av WHERE av.profesorId = :profesorId")
+    List<Long> findIdsByProfesorId(@Param("profesorId") Long profesorId);
+    
     // ✅ MÉTODOS CON ORDENAMIENTO
     List<AulaVirtual> findByProfesorIdOrderByFechaInicioDesc(Long profesorId);
     List<AulaVirtual> findByEstadoOrderByFechaInicioDesc(String estado);
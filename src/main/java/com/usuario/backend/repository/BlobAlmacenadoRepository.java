@@ -0,0 +1,17 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.BlobAlmacenado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BlobAlmacenadoRepository extends JpaRepository<BlobAlmacenado, Long> {
+
+    // ✅ BÚSQUEDA POR CONTENIDO (uk_blobs_contenido)
+    Optional<BlobAlmacenado> findByBackendAndCarpetaAndSha256(String backend, String carpeta, String sha256);
+
+    // ✅ BÚSQUEDA POR CLAVE (idx_blobs_clave)
+    Optional<BlobAlmacenado> findByBackendAndClave(String backend, String clave);
+}
@@ -0,0 +1,29 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.BlobHuerfano;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BlobHuerfanoRepository extends JpaRepository<BlobHuerfano, Long> {
+
+    // ✅ LOTE DE RECOLECCIÓN (idx_huerfanos_pendientes)
+    List<BlobHuerfano> findByBackendAndFechaEncoladoBeforeOrderByFechaEncoladoAscIdAsc(
+            String backend, LocalDateTime limite, Pageable pageable);
+
+    long countByBackend(String backend);
+
+    // ✅ RECLAMAR UNA ENTRADA: SOLO UN RECOLECTOR OBTIENE 1
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM BlobHuerfano h WHERE h.id = :id")
+    int reclamar(@Param("id") Long id);
+}
@@ -0,0 +1,76 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.Comentario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ComentarioRepository extends JpaRepository<Comentario, Long> {
+
+    // ✅ VALIDAR COMENTARIO PADRE (ACTIVO Y DEL MISMO ANUNCIO) SIN CARGAR LA ENTIDAD
+    boolean existsByIdAndAnuncioIdAndActivoTrue(Long id, Long anuncioId);
+
+    // ✅ HILOS: PÁGINA DE RAÍCES (keyset fecha_creacion, id; limite = size + 1 para saber si hay más)
+    // Y SUS RESPUESTAS VÍA CTE RECURSIVA, COMO MÁXIMO maxRespuestas POR HILO (las más antiguas:
+    // el padre de una respuesta siempre es anterior, así que ninguna queda sin su padre)
+    String HILOS_RAICES =
+            "WITH RECURSIVE raiz (id) AS (" +
+            "  SELECT id FROM comentarios" +
+            "  WHERE anuncio_id = :anuncioId AND activo = true AND comentario_padre_id IS NULL ";
+
+    String HILOS_RESPUESTAS =
+            "  ORDER BY fecha_creacion, id LIMIT :limite" +
+            "), hilo (id, raiz_id, comentario_padre_id, usuario_id, contenido, fecha_creacion) AS (" +
+            "  SELECT c.id, c.id, c.comentario_padre_id, c.usuario_id, c.contenido, c.fecha_creacion" +
+            "  FROM comentarios c JOIN raiz r ON c.id = r.id" +
+            "  UNION ALL" +
+            "  SELECT c.id, h.raiz_id, c.comentario_padre_id, c.usuario_id, c.contenido, c.fecha_creacion" +
+            "  FROM comentarios c JOIN hilo h ON c.comentario_padre_id = h.id" +
+            "  WHERE c.activo = true" +
+            "), numerado (id, raiz_id, comentario_padre_id, usuario_id, contenido, fecha_creacion, orden, total_respuestas) AS (" +
+            "  SELECT h.id, h.raiz_id, h.comentario_padre_id, h.usuario_id, h.contenido, h.fecha_creacion," +
+            "  ROW_NUMBER() OVER (PARTITION BY h.raiz_id ORDER BY h.fecha_creacion, h.id) AS orden," +
+            "  COUNT(*) OVER (PARTITION BY h.raiz_id) - 1 AS total_respuestas" +
+            "  FROM hilo h" +
+            ") " +
+            "SELECT x.id AS id, x.comentario_padre_id AS comentarioPadreId, x.usuario_id AS usuarioId, " +
+            "x.contenido AS contenido, x.fecha_creacion AS fechaCreacion, x.total_respuestas AS totalRespuestas, " +
+            "u.nombre AS nombre, u.apellidos AS apellidos, u.profile_image_url AS profileImageUrl " +
+            "FROM numerado x LEFT JOIN usuarios u ON u.id = x.usuario_id " +
+            "WHERE x.orden <= :maxRespuestas + 1 " +
+            "ORDER BY x.fecha_creacion, x.id";
+
+    @Query(value = HILOS_RAICES + HILOS_RESPUESTAS, nativeQuery = true)
+    List<FilaHilo> findHilos(@Param("anuncioId") Long anuncioId,
+                             @Param("limite") int limite,
+                             @Param("maxRespuestas") int maxRespuestas);
+
+    @Query(value = HILOS_RAICES +
+                   "AND (fecha_creacion > :fecha OR (fecha_creacion = :fecha AND id > :id))" +
+                   HILOS_RESPUESTAS, nativeQuery = true)
+    List<FilaHilo> findHilosDespuesDe(@Param("anuncioId") Long anuncioId,
+                                      @Param("fecha") LocalDateTime fecha,
+                                      @Param("id") Long id,
+                                      @Param("limite") int limite,
+                                      @Param("maxRespuestas") int maxRespuestas);
+
+    /**
+     * Fila de findHilos: un comentario del hilo con los datos de su autor
+     */
+    interface FilaHilo {
+        Long getId();
+        Long getComentarioPadreId();
+        Integer getUsuarioId();
+        String getContenido();
+        LocalDateTime getFechaCreacion();
+        Long getTotalRespuestas();
+        String getNombre();
+        String getApellidos();
+        String getProfileImageUrl();
+    }
+}
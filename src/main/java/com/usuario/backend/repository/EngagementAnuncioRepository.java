@@ -0,0 +1,22 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.dto.EngagementAnuncioDTO;
+import com.usuario.backend.model.entity.EngagementAnuncio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EngagementAnuncioRepository extends JpaRepository<EngagementAnuncio, Long> {
+
+    // ✅ PANEL DEL AULA: UNA CONSULTA SOBRE EL ÍNDICE (aula_id, anuncio_id)
+    @Query("SELECT new com.usuario.backend.model.dto.EngagementAnuncioDTO(" +
+           "e.anuncioId, a.titulo, a.fechaPublicacion, e.alcance, e.lecturas, e.likes) " +
+           "FROM EngagementAnuncio e JOIN Anuncio a ON a.id = e.anuncioId " +
+           "WHERE e.aulaId = :aulaId AND a.activo = true " +
+           "ORDER BY a.fechaPublicacion DESC, a.id DESC")
+    List<EngagementAnuncioDTO> findPanelDeAula(@Param("aulaId") Integer aulaId);
+}
@@ -0,0 +1,22 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.Lectura;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LecturaRepository extends JpaRepository<Lectura, Long> {
+
+    // ✅ ANUNCIOS YA LEÍDOS POR EL USUARIO DENTRO DE UN CONJUNTO
+    @Query("SELECT l.anuncioId FROM Lectura l WHERE l.usuarioId = :usuarioId AND l.anuncioId IN :anuncioIds")
+    List<Long> findAnuncioIdsLeidos(@Param("usuarioId") Integer usuarioId,
+                                    @Param("anuncioIds") Collection<Long> anuncioIds);
+
+    // ✅ ¿EL USUARIO YA LEYÓ EL ANUNCIO?
+    boolean existsByUsuarioIdAndAnuncioId(Integer usuarioId, Long anuncioId);
+}
@@ -0,0 +1,29 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.Like;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LikeRepository extends JpaRepository<Like, Long> {
+
+    // ✅ ALTA IDEMPOTENTE: 1 si se insertó, 0 si ya existía (sin violar la restricción única)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO likes (usuario_id, anuncio_id, fecha_creacion) " +
+                   "VALUES (:usuarioId, :anuncioId, NOW())", nativeQuery = true)
+    int insertarSiNoExiste(@Param("usuarioId") Integer usuarioId, @Param("anuncioId") Long anuncioId);
+
+    // ✅ BAJA DIRECTA: 1 si existía, 0 si no
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.usuarioId = :usuarioId AND l.anuncioId = :anuncioId")
+    int eliminar(@Param("usuarioId") Integer usuarioId, @Param("anuncioId") Long anuncioId);
+
+    // ✅ TODOS LOS ANUNCIOS CON LIKE DEL USUARIO (SOLO IDS)
+    @Query("SELECT l.anuncioId FROM Like l WHERE l.usuarioId = :usuarioId")
+    List<Long> findAnuncioIdsByUsuarioId(@Param("usuarioId") Integer usuarioId);
+}
@@ -0,0 +1,14 @@
+package com.usuario.backend.repository;
+
+import com.usuario.backend.model.entity.NoLeidosAula;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NoLeidosAulaRepository extends JpaRepository<NoLeidosAula, Long> {
+
+    // ✅ CONTADORES DE UN USUARIO (UNA FILA POR AULA)
+    List<NoLeidosAula> findByUsuarioIdAndTotalGreaterThan(Integer usuarioId, Integer total);
+}
@@ -2,9 +2,23 @@ package com.usuario.backend.repository;
 
 import com.usuario.backend.model.entity.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Usuario findByCorreoInstitucional(String correoInstitucional);
+
+    // ✅ FOTO DE PERFIL ACTUAL CON LA FILA BLOQUEADA (lista vacía si el usuario no existe)
+    @Query(value = "SELECT profile_image_url FROM usuarios WHERE id = :id FOR UPDATE", nativeQuery = true)
+    List<String> findProfileImageUrlParaActualizar(@Param("id") Long id);
+
+    // ✅ CAMBIO DIRECTO DE LA FOTO DE PERFIL (sin reescribir el resto del usuario)
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE usuarios SET profile_image_url = :url WHERE id = :id", nativeQuery = true)
+    int actualizarProfileImageUrl(@Param("id") Long id, @Param("url") String url);
 }
\ No newline at end of file
@@ -146,12 +146,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     /**
      * Extrae el token JWT del header Authorization
+     * (o de ?token= solo en los streams SSE, porque EventSource no permite headers)
      */
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
+        String queryToken = request.getParameter("token");
+        if (StringUtils.hasText(queryToken) && request.getRequestURI().endsWith("/eventos")) {
+            return queryToken;
+        }
         return null;
     }
 }
\ No newline at end of file
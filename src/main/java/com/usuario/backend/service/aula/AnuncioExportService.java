@@ -0,0 +1,92 @@
+package com.usuario.backend.service.aula;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usuario.backend.model.entity.Anuncio;
+import com.usuario.backend.repository.AnuncioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 📤 Exporta todos los anuncios escribiéndolos fila a fila en la respuesta.
+ * La memoria usada es constante: cada entidad se serializa y se desacopla del contexto
+ * de persistencia antes de leer la siguiente.
+ */
+@Service
+public class AnuncioExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnuncioExportService.class);
+
+    private static final int FLUSH_CADA = 100;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Escribe un array JSON con el mismo formato que devolvía /todos
+     */
+    @Transactional(readOnly = true)
+    public long exportarJson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = crearGenerator(out)) {
+            generator.writeStartArray();
+            long total = escribirTodos(generator);
+            generator.writeEndArray();
+            return total;
+        }
+    }
+
+    /**
+     * Escribe un anuncio por línea (NDJSON), apto para procesar en streaming del lado del cliente
+     */
+    @Transactional(readOnly = true)
+    public long exportarNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = crearGenerator(out)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            long total = escribirTodos(generator);
+            generator.writeRaw('\n');
+            return total;
+        }
+    }
+
+    private long escribirTodos(JsonGenerator generator) throws IOException {
+        long total = 0;
+        try (Stream<Anuncio> anuncios = anuncioRepository.streamTodos()) {
+            Iterator<Anuncio> it = anuncios.iterator();
+            while (it.hasNext()) {
+                Anuncio anuncio = it.next();
+                generator.writeObject(anuncio);
+                entityManager.detach(anuncio);
+                if (++total % FLUSH_CADA == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        logger.info("📤 Exportación completada: {} anuncios", total);
+        return total;
+    }
+
+    private JsonGenerator crearGenerator(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8);
+        // El stream pertenece al contenedor de servlets; no cerrarlo al terminar
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
@@ -1,18 +1,80 @@
 package com.usuario.backend.service.aula;
 
+import com.usuario.backend.model.dto.AnuncioResumenDTO;
+import com.usuario.backend.model.dto.FeedCursor;
+import com.usuario.backend.model.dto.FeedPage;
 import com.usuario.backend.model.entity.Anuncio;
 import com.usuario.backend.repository.AnuncioRepository;
 import com.usuario.backend.service.aula.AulaVirtualService;
+import com.usuario.backend.service.cache.SingleFlightCache;
+import com.usuario.backend.service.interaccion.EngagementService;
+import com.usuario.backend.service.interaccion.EventosAulaService;
+import com.usuario.backend.service.interaccion.NoLeidosService;
+import com.usuario.backend.service.storage.BlobDedupService;
+import com.usuario.backend.service.storage.LocalBlobStore;
+import com.usuario.backend.service.storage.StoredBlob;
+import com.usuario.backend.service.upload.UploadValidator;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class AnuncioService {
+    public static final int FEED_LIMIT_DEFAULT = 20;
+    public static final int FEED_LIMIT_MAX = 50;
+    public static final String CARPETA_ADJUNTOS = "tecbook_anuncios";
+
+    private static final Logger logger = LoggerFactory.getLogger(AnuncioService.class);
+
     @Autowired
     private AnuncioRepository anuncioRepository;
     @Autowired
     private AulaVirtualService aulaVirtualService;
+    @Autowired
+    private NoLeidosService noLeidosService;
+    @Autowired
+    private EventosAulaService eventosAulaService;
+    @Autowired
+    private EngagementService engagementService;
+    @Autowired
+    @Qualifier("adjuntosBlobStore")
+    private LocalBlobStore adjuntosBlobStore;
+    @Autowired
+    private BlobDedupService blobDedupService;
+    @Autowired
+    private UploadValidator uploadValidator;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.feed.cache-ttl-ms:30000}")
+    private long feedCacheTtlMs;
+    @Value("${app.feed.cache-max-aulas:2000}")
+    private int feedCacheMaxAulas;
+
+    // Caché por aula de lo que se consulta en cada polling; se invalida al publicar
+    private SingleFlightCache<Integer, List<Anuncio>> anunciosPorAula;
+    private SingleFlightCache<Integer, FeedPage<AnuncioResumenDTO>> primeraPaginaPorAula;
+
+    @PostConstruct
+    void initCaches() {
+        anunciosPorAula = new SingleFlightCache<>("anunciosPorAula", feedCacheTtlMs, feedCacheMaxAulas);
+        primeraPaginaPorAula = new SingleFlightCache<>("primeraPaginaPorAula", feedCacheTtlMs, feedCacheMaxAulas);
+    }
 
     public List<Anuncio> getAnunciosDeAula(Long usuarioId, String rol, Integer aulaId) {
         System.out.println("[AnuncioService] usuarioId=" + usuarioId + ", rol=" + rol + ", aulaId=" + aulaId);
@@ -22,11 +84,66 @@ public class AnuncioService {
             System.out.println("[AnuncioService] Acceso denegado para usuario " + usuarioId + " en aula " + aulaId);
             throw new SecurityException("No tiene permiso para ver los anuncios de este aula");
         }
-        List<Anuncio> anuncios = anuncioRepository.findByAulaIdAndActivoTrueOrderByFechaPublicacionDesc(aulaId);
+        List<Anuncio> anuncios = anunciosPorAula.get(aulaId,
+                id -> List.copyOf(anuncioRepository.findByAulaIdAndActivoTrueOrderByFechaPublicacionDesc(id)));
         System.out.println("[AnuncioService] Anuncios retornados: " + (anuncios != null ? anuncios.size() : 0));
         return anuncios;
     }
 
+    /**
+     * Página del feed de un aula paginada por cursor (fecha_publicacion, id), con proyección ligera.
+     * El coste es constante sin importar cuántos anuncios acumule el aula.
+     */
+    public FeedPage<AnuncioResumenDTO> getFeedDeAula(Long usuarioId, String rol, Integer aulaId, String cursor, Integer limit) {
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            throw new SecurityException("No tiene permiso para ver los anuncios de este aula");
+        }
+        int size = normalizarLimite(limit);
+        FeedCursor desde = FeedCursor.decode(cursor);
+        if (desde == null && size == FEED_LIMIT_DEFAULT) {
+            // Primera página con el tamaño por defecto: es la que piden todas las pestañas abiertas
+            return primeraPaginaPorAula.get(aulaId, id -> cargarPagina(id, null, FEED_LIMIT_DEFAULT));
+        }
+        return cargarPagina(aulaId, desde, size);
+    }
+
+    private FeedPage<AnuncioResumenDTO> cargarPagina(Integer aulaId, FeedCursor desde, int size) {
+        PageRequest pageable = PageRequest.of(0, size + 1);
+        List<AnuncioResumenDTO> filas = desde == null
+                ? anuncioRepository.findFeedDeAula(aulaId, pageable)
+                : anuncioRepository.findFeedDeAulaAntesDe(aulaId, desde.fecha(), desde.id(), pageable);
+        return paginar(filas, size);
+    }
+
+    /**
+     * Descarta la caché del aula tras cualquier escritura que cambie su feed
+     */
+    public void invalidarCacheDeAula(Integer aulaId) {
+        if (aulaId == null) {
+            return;
+        }
+        anunciosPorAula.invalidate(aulaId);
+        primeraPaginaPorAula.invalidate(aulaId);
+    }
+
+    /**
+     * Métricas de hit rate y coalescencia de las cachés del feed
+     */
+    public List<SingleFlightCache.CacheStats> getFeedCacheStats() {
+        return List.of(anunciosPorAula.getStats(), primeraPaginaPorAula.getStats());
+    }
+
+    /**
+     * Detalle completo (contenido y etiquetas) de un anuncio del aula, o null si no existe
+     */
+    public Anuncio getAnuncioDeAula(Long usuarioId, String rol, Integer aulaId, Long anuncioId) {
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            throw new SecurityException("No tiene permiso para ver los anuncios de este aula");
+        }
+        return anuncioRepository.findByIdAndAulaIdAndActivoTrue(anuncioId, aulaId);
+    }
+
+    @Transactional
     public Anuncio crearAnuncio(Long usuarioId, String rol, Integer aulaId, Anuncio anuncio) {
         // Verifica acceso antes de crear anuncio
         if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
@@ -37,7 +154,50 @@ public class AnuncioService {
         anuncio.setFechaPublicacion(java.time.LocalDateTime.now());
         anuncio.setActivo(true);
         // tipo ya es String, no requiere conversión
-        return anuncioRepository.save(anuncio);
+        Anuncio guardado = anuncioRepository.save(anuncio);
+        // Si se invalida antes del commit, una consulta concurrente volvería a cachear el feed sin el anuncio
+        despuesDelCommit(() -> invalidarCacheDeAula(aulaId));
+        noLeidosService.registrarAnuncio(aulaId, guardado.getAutorId());
+        eventosAulaService.registrarAnuncio(aulaId, guardado.getId());
+        engagementService.registrarAnuncio(aulaId, guardado.getId());
+        return guardado;
+    }
+
+    /**
+     * 📎 Crea un anuncio con adjunto: verifica acceso, guarda el archivo en el almacén local
+     * de adjuntos y registra su clave y hash en el anuncio
+     */
+    public Anuncio crearAnuncioConAdjunto(Long usuarioId, String rol, Integer aulaId, Anuncio anuncio,
+                                          MultipartFile archivo) throws IOException {
+        // Verificar antes de escribir nada en el almacenamiento
+        if (!aulaVirtualService.puedeAccederAAula(usuarioId, rol, aulaId)) {
+            throw new SecurityException("No tiene permiso para crear anuncios en este aula");
+        }
+        // El tipo se toma del contenido, no de lo que declara el navegador
+        String tipo = uploadValidator.validarAdjunto(archivo);
+        // El mismo archivo (p. ej. el sílabo en cada sección) se guarda una sola vez
+        StoredBlob adjunto = blobDedupService.guardar(adjuntosBlobStore, archivo, CARPETA_ADJUNTOS);
+        anuncio.setArchivoNombre(archivo.getOriginalFilename());
+        anuncio.setArchivoTipo(tipo);
+        anuncio.setArchivoTamaño(adjunto.size());
+        anuncio.setArchivoClave(adjunto.key());
+        anuncio.setArchivoHash(adjunto.sha256());
+        // El archivo se sube fuera de la transacción (es E/S lenta); si la transacción del
+        // anuncio se revierte, se libera la referencia que acabamos de tomar
+        return transactionTemplate.execute(status -> {
+            liberarAdjuntoSiSeRevierte(adjunto.key());
+            Anuncio guardado = crearAnuncio(usuarioId, rol, aulaId, anuncio);
+            // La URL de descarga depende del id, que solo existe tras el primer guardado
+            guardado.setArchivoUrl("/api/aulas/" + aulaId + "/anuncios/" + guardado.getId() + "/archivo");
+            return anuncioRepository.save(guardado);
+        });
+    }
+
+    /**
+     * Ruta en disco del adjunto de un anuncio (vacío si no tiene o el archivo no está)
+     */
+    public Optional<Path> getRutaAdjunto(Anuncio anuncio) {
+        return adjuntosBlobStore.path(anuncio.getArchivoClave());
     }
 
     public List<Anuncio> getAnunciosGenerales() {
@@ -53,7 +213,68 @@ public class AnuncioService {
         return anuncioRepository.save(anuncio);
     }
 
-    public List<Anuncio> getTodosLosAnuncios() {
-        return anuncioRepository.findAll();
+    /**
+     * Listado administrativo de todos los anuncios paginado por id (keyset)
+     */
+    public FeedPage<Anuncio> getTodosLosAnunciosPaginado(Long afterId, Integer limit) {
+        int size = normalizarLimite(limit);
+        List<Anuncio> filas = anuncioRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, PageRequest.of(0, size + 1));
+        boolean hasMore = filas.size() > size;
+        List<Anuncio> items = hasMore ? filas.subList(0, size) : filas;
+        String nextCursor = hasMore ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return new FeedPage<>(items, nextCursor, hasMore);
+    }
+
+    public static int normalizarLimite(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return FEED_LIMIT_DEFAULT;
+        }
+        return Math.min(limit, FEED_LIMIT_MAX);
+    }
+
+    /**
+     * Recorta la fila extra pedida (size + 1) y construye el cursor de la siguiente página
+     */
+    private FeedPage<AnuncioResumenDTO> paginar(List<AnuncioResumenDTO> filas, int size) {
+        boolean hasMore = filas.size() > size;
+        List<AnuncioResumenDTO> items = hasMore ? filas.subList(0, size) : filas;
+        String nextCursor = null;
+        if (hasMore) {
+            AnuncioResumenDTO ultimo = items.get(items.size() - 1);
+            nextCursor = new FeedCursor(ultimo.fechaPublicacion(), ultimo.id()).encode();
+        }
+        return new FeedPage<>(items, nextCursor, hasMore);
+    }
+
+    // ========== INTERNOS ==========
+
+    private void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private void liberarAdjuntoSiSeRevierte(String clave) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    blobDedupService.liberar(adjuntosBlobStore, clave);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("⚠️ Adjunto {} sin anuncio tras revertir, no se pudo liberar: {}", clave, e.getMessage());
+                }
+            }
+        });
     }
 }
@@ -4,6 +4,7 @@ import com.usuario.backend.model.entity.AulaVirtual;
 import com.usuario.backend.model.entity.AulaEstudiante;
 import com.usuario.backend.repository.AulaVirtualRepository;
 import com.usuario.backend.repository.AulaEstudianteRepository;
+import com.usuario.backend.service.interaccion.NoLeidosService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class AulaVirtualService {
     @Autowired
     private AulaEstudianteRepository aulaEstudianteRepository;
 
+    @Autowired
+    private NoLeidosService noLeidosService;
+
     /**
      * 🔥 MÉTODO PRINCIPAL: Obtiene aulas según el rol del usuario
      */
@@ -102,6 +106,8 @@ public class AulaVirtualService {
                 aulaEstudianteRepository.save(aulaEstudiante);
                 logger.info("Estudiante {} agregado al aula {} exitosamente", estudianteId, aulaId);
             }
+            // Los anuncios previos a la inscripción nunca le sumaron: se cuentan una vez
+            noLeidosService.recalcular(estudianteId.intValue(), aulaId.intValue());
         } catch (Exception e) {
             logger.error("Error al agregar estudiante {} al aula {}: {}", estudianteId, aulaId, e.getMessage());
             throw e;
@@ -199,6 +205,8 @@ public class AulaVirtualService {
             participante.setEstado(AulaEstudiante.EstadoEstudiante.inactivo);
             participante.setFechaSalida(java.time.LocalDateTime.now());
             aulaEstudianteRepository.save(participante);
+            // Fuera del aula ya no tiene anuncios pendientes en ella
+            noLeidosService.eliminar(estudianteId.intValue(), aulaId.intValue());
             logger.info("Participante {} desactivado en aula {}", estudianteId, aulaId);
             return true;
         } catch (Exception e) {
@@ -0,0 +1,128 @@
+package com.usuario.backend.service.aula;
+
+import com.usuario.backend.model.dto.AnuncioResumenDTO;
+import com.usuario.backend.model.dto.FeedCursor;
+import com.usuario.backend.model.dto.FeedPage;
+import com.usuario.backend.repository.AnuncioRepository;
+import com.usuario.backend.repository.AulaEstudianteRepository;
+import com.usuario.backend.repository.AulaVirtualRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 🏠 Feed unificado del usuario: anuncios generales + anuncios de todas sus aulas.
+ * Cada fuente aporta su top-K por índice y se combinan con un k-way merge por fecha.
+ */
+@Service
+public class FeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+
+    /**
+     * Orden global del feed: más reciente primero, desempate por id descendente
+     */
+    public static final Comparator<AnuncioResumenDTO> ORDEN_FEED = Comparator
+            .comparing(AnuncioResumenDTO::fechaPublicacion, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(AnuncioResumenDTO::id, Comparator.reverseOrder());
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private AulaEstudianteRepository aulaEstudianteRepository;
+
+    @Autowired
+    private AulaVirtualRepository aulaVirtualRepository;
+
+    /**
+     * 🔥 Obtiene una página del feed unificado a partir del cursor
+     */
+    public FeedPage<AnuncioResumenDTO> getFeed(Long usuarioId, String rol, String cursor, Integer limit) {
+        int size = AnuncioService.normalizarLimite(limit);
+        FeedCursor desde = FeedCursor.decode(cursor);
+        PageRequest topK = PageRequest.of(0, size + 1);
+
+        List<Long> aulaIds = getAulaIds(usuarioId, rol);
+        List<List<AnuncioResumenDTO>> fuentes = new ArrayList<>(aulaIds.size() + 1);
+
+        fuentes.add(desde == null
+                ? anuncioRepository.findFeedGeneral(topK)
+                : anuncioRepository.findFeedGeneralAntesDe(desde.fecha(), desde.id(), topK));
+
+        for (Long aulaId : aulaIds) {
+            Integer id = aulaId.intValue();
+            fuentes.add(desde == null
+                    ? anuncioRepository.findFeedDeAula(id, topK)
+                    : anuncioRepository.findFeedDeAulaAntesDe(id, desde.fecha(), desde.id(), topK));
+        }
+
+        List<AnuncioResumenDTO> merged = merge(fuentes, size + 1);
+        logger.debug("Feed de usuario {}: {} fuentes, {} anuncios combinados", usuarioId, fuentes.size(), merged.size());
+
+        boolean hasMore = merged.size() > size;
+        List<AnuncioResumenDTO> items = hasMore ? merged.subList(0, size) : merged;
+        String nextCursor = null;
+        if (hasMore) {
+            AnuncioResumenDTO ultimo = items.get(items.size() - 1);
+            nextCursor = new FeedCursor(ultimo.fechaPublicacion(), ultimo.id()).encode();
+        }
+        return new FeedPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Aulas visibles según el rol: inscritas (estudiante) o propias (profesor)
+     */
+    private List<Long> getAulaIds(Long usuarioId, String rol) {
+        if ("PROFESOR".equalsIgnoreCase(rol)) {
+            return aulaVirtualRepository.findIdsByProfesorId(usuarioId);
+        } else if ("ESTUDIANTE".equalsIgnoreCase(rol)) {
+            return aulaEstudianteRepository.findAulaIdsByEstudianteId(usuarioId);
+        }
+        return List.of();
+    }
+
+    /**
+     * K-way merge de listas ya ordenadas por {@link #ORDEN_FEED} usando un heap de cabezas.
+     * O(limit · log k) sin ordenar el total de filas recibidas.
+     */
+    static List<AnuncioResumenDTO> merge(List<List<AnuncioResumenDTO>> fuentes, int limit) {
+        PriorityQueue<Cabeza> heap = new PriorityQueue<>(Math.max(1, fuentes.size()),
+                (a, b) -> ORDEN_FEED.compare(a.actual, b.actual));
+        for (List<AnuncioResumenDTO> fuente : fuentes) {
+            Iterator<AnuncioResumenDTO> it = fuente.iterator();
+            if (it.hasNext()) {
+                heap.add(new Cabeza(it.next(), it));
+            }
+        }
+
+        List<AnuncioResumenDTO> resultado = new ArrayList<>(limit);
+        while (!heap.isEmpty() && resultado.size() < limit) {
+            Cabeza cabeza = heap.poll();
+            resultado.add(cabeza.actual);
+            if (cabeza.resto.hasNext()) {
+                cabeza.actual = cabeza.resto.next();
+                heap.add(cabeza);
+            }
+        }
+        return resultado;
+    }
+
+    private static final class Cabeza {
+        private AnuncioResumenDTO actual;
+        private final Iterator<AnuncioResumenDTO> resto;
+
+        private Cabeza(AnuncioResumenDTO actual, Iterator<AnuncioResumenDTO> resto) {
+            this.actual = actual;
+            this.resto = resto;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.usuario.backend.service.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché en memoria con TTL y carga "single-flight": si varios hilos fallan a la vez
+ * sobre la misma clave, solo uno ejecuta el loader y el resto espera su resultado.
+ * La invalidación descarta también las cargas en curso, así un resultado que empezó
+ * antes de una escritura nunca queda publicado después de ella.
+ */
+public class SingleFlightCache<K, V> {
+
+    private final String nombre;
+    private final long ttlMs;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+    private final ReentrantLock recorteLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+
+    public SingleFlightCache(String nombre, long ttlMs, int maxEntries) {
+        this.nombre = nombre;
+        this.ttlMs = ttlMs;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Devuelve el valor cacheado o lo carga una sola vez aunque haya fallos concurrentes
+     */
+    public V get(K key, Function<K, V> loader) {
+        while (true) {
+            Entrada<V> existente = entradas.get(key);
+            if (existente != null) {
+                if (!existente.future.isDone()) {
+                    coalesced.increment();
+                    return esperar(existente.future);
+                }
+                if (!existente.future.isCompletedExceptionally() && !existente.isExpirada(ttlMs)) {
+                    hits.increment();
+                    return existente.future.join();
+                }
+                entradas.remove(key, existente);
+            }
+
+            Entrada<V> propia = new Entrada<>();
+            if (entradas.putIfAbsent(key, propia) != null) {
+                continue;
+            }
+
+            misses.increment();
+            try {
+                V valor = loader.apply(key);
+                propia.cargadaEn = System.currentTimeMillis();
+                propia.future.complete(valor);
+                recortarSiExcede();
+                return valor;
+            } catch (RuntimeException | Error e) {
+                // También con Error: si el future no se completa, los que esperan se quedan colgados
+                loadFailures.increment();
+                entradas.remove(key, propia);
+                propia.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Aplica una escritura sobre el valor cacheado sin recargarlo. Si hay una carga en curso
+     * se descarta (pudo leer antes de la escritura); si la clave no está, no hace nada.
+     * La función debe devolver un valor nuevo, no modificar el recibido.
+     */
+    public void update(K key, UnaryOperator<V> actualizacion) {
+        while (true) {
+            Entrada<V> existente = entradas.get(key);
+            if (existente == null) {
+                return;
+            }
+            if (!existente.future.isDone() || existente.future.isCompletedExceptionally()) {
+                invalidate(key);
+                return;
+            }
+            Entrada<V> nueva = new Entrada<>();
+            nueva.cargadaEn = existente.cargadaEn;
+            nueva.future.complete(actualizacion.apply(existente.future.join()));
+            if (entradas.replace(key, existente, nueva)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Elimina la clave (incluida una carga en curso) tras una escritura
+     */
+    public void invalidate(K key) {
+        if (entradas.remove(key) != null) {
+            invalidations.increment();
+        }
+    }
+
+    public void invalidateAll() {
+        entradas.clear();
+        invalidations.increment();
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(nombre, entradas.size(), hits.sum(), misses.sum(),
+                coalesced.sum(), invalidations.sum(), loadFailures.sum());
+    }
+
+    /**
+     * Por encima del máximo se quitan primero las expiradas y, si no basta, las cargadas hace
+     * más tiempo hasta bajar al 90% (así no se ordena el mapa en cada alta). Las cargas en
+     * curso no se tocan.
+     */
+    private void recortarSiExcede() {
+        if (entradas.size() <= maxEntries || !recorteLock.tryLock()) {
+            return;
+        }
+        try {
+            entradas.entrySet().removeIf(e -> e.getValue().future.isDone() && e.getValue().isExpirada(ttlMs));
+            int sobran = entradas.size() - (maxEntries - maxEntries / 10);
+            if (entradas.size() <= maxEntries || sobran <= 0) {
+                return;
+            }
+            List<Map.Entry<K, Entrada<V>>> cargadas = new ArrayList<>(entradas.size());
+            for (Map.Entry<K, Entrada<V>> e : entradas.entrySet()) {
+                if (e.getValue().future.isDone()) {
+                    cargadas.add(e);
+                }
+            }
+            cargadas.sort(Comparator.comparingLong(e -> e.getValue().cargadaEn));
+            for (int i = 0; i < cargadas.size() && i < sobran; i++) {
+                entradas.remove(cargadas.get(i).getKey(), cargadas.get(i).getValue());
+            }
+        } finally {
+            recorteLock.unlock();
+        }
+    }
+
+    private static <V> V esperar(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entrada<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private volatile long cargadaEn;
+
+        private boolean isExpirada(long ttlMs) {
+            return System.currentTimeMillis() - cargadaEn >= ttlMs;
+        }
+    }
+
+    /**
+     * Métricas de la caché (hit rate y cargas coalescidas)
+     */
+    public static class CacheStats {
+        private final String nombre;
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long coalesced;
+        private final long invalidations;
+        private final long loadFailures;
+
+        public CacheStats(String nombre, int size, long hits, long misses, long coalesced,
+                          long invalidations, long loadFailures) {
+            this.nombre = nombre;
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.invalidations = invalidations;
+            this.loadFailures = loadFailures;
+        }
+
+        public String getNombre() { return nombre; }
+        public int getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getCoalesced() { return coalesced; }
+        public long getInvalidations() { return invalidations; }
+        public long getLoadFailures() { return loadFailures; }
+
+        /**
+         * Porcentaje de peticiones servidas sin consultar la BD (hits + esperas coalescidas)
+         */
+        public double getHitRate() {
+            long total = hits + misses + coalesced;
+            return total > 0 ? (double) (hits + coalesced) / total * 100 : 0;
+        }
+    }
+}
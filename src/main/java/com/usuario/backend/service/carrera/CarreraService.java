@@ -32,6 +32,14 @@ public class CarreraService {
         }
     }
 
+    /**
+     * 🔢 Cuenta carreras activas sin cargar las entidades (usado por health checks)
+     */
+    public long countCarrerasActivas() {
+        Long count = carreraRepository.countCarrerasActivas();
+        return count != null ? count : 0L;
+    }
+
     /**
      * 🔍 Busca una carrera por ID
      */
@@ -0,0 +1,234 @@
+package com.usuario.backend.service.health;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.usuario.backend.service.carrera.CarreraService;
+import com.usuario.backend.service.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 🏥 Subsistema de salud: ejecuta sondas baratas contra la base de datos,
+ * el modelo JPA y Cloudinary, y cachea el resultado unos segundos para que
+ * los probes del balanceador no golpeen los servicios en cada petición.
+ */
+@Service
+public class HealthCheckService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HealthCheckService.class);
+
+    public static final String UP = "UP";
+    public static final String DEGRADED = "DEGRADED";
+    public static final String DOWN = "DOWN";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CarreraService carreraService;
+
+    @Autowired
+    private Cloudinary cloudinary;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${app.health.cache-ttl-ms:5000}")
+    private long cacheTtlMs;
+
+    @Value("${app.health.db-timeout-seconds:2}")
+    private int dbTimeoutSeconds;
+
+    @Value("${app.health.cloudinary-ttl-ms:60000}")
+    private long cloudinaryTtlMs;
+
+    @Value("${app.health.cloudinary-timeout-seconds:3}")
+    private int cloudinaryTimeoutSeconds;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private volatile HealthSnapshot snapshot;
+
+    private volatile ProbeResult cloudinaryResult;
+
+    /**
+     * 🔍 Devuelve el último estado calculado; si ya expiró lo recalcula un solo hilo
+     * mientras el resto sigue sirviendo el snapshot anterior.
+     */
+    public HealthSnapshot getHealth() {
+        HealthSnapshot current = snapshot;
+        if (current != null && !isExpired(current.getCheckedAt(), cacheTtlMs)) {
+            return current;
+        }
+
+        if (current != null) {
+            if (!refreshLock.tryLock()) {
+                return current;
+            }
+        } else {
+            refreshLock.lock();
+        }
+
+        try {
+            current = snapshot;
+            if (current != null && !isExpired(current.getCheckedAt(), cacheTtlMs)) {
+                return current;
+            }
+            snapshot = refresh();
+            return snapshot;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // ========== SONDAS ==========
+
+    private HealthSnapshot refresh() {
+        Map<String, ProbeResult> components = new LinkedHashMap<>();
+        components.put("database", probeDatabase());
+        components.put("carreras", probeCarreras());
+        components.put("file_storage", probeCloudinary());
+
+        String status = UP;
+        if (!components.get("database").isUp() || !components.get("carreras").isUp()) {
+            status = DOWN;
+        } else if (!components.get("file_storage").isUp()) {
+            status = DEGRADED;
+        }
+
+        if (!UP.equals(status)) {
+            logger.warn("⚠️ Health check en estado {}: {}", status, components);
+        }
+        return new HealthSnapshot(status, components, System.currentTimeMillis());
+    }
+
+    /**
+     * 🐘 Toma una conexión del pool y la valida con timeout (sin ejecutar consultas)
+     */
+    private ProbeResult probeDatabase() {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean valid = connection.isValid(dbTimeoutSeconds);
+            return new ProbeResult(valid ? UP : DOWN, elapsedMs(start),
+                    valid ? "Conexión válida" : "La conexión no respondió en " + dbTimeoutSeconds + "s");
+        } catch (Exception e) {
+            logger.error("❌ Sonda de base de datos falló: {}", e.getMessage());
+            return new ProbeResult(DOWN, elapsedMs(start), e.getMessage());
+        }
+    }
+
+    private ProbeResult probeCarreras() {
+        long start = System.nanoTime();
+        try {
+            long count = carreraService.countCarrerasActivas();
+            return new ProbeResult(UP, elapsedMs(start), "carrerasActivas=" + count);
+        } catch (Exception e) {
+            logger.error("❌ Sonda de carreras falló: {}", e.getMessage());
+            return new ProbeResult(DOWN, elapsedMs(start), e.getMessage());
+        }
+    }
+
+    /**
+     * ☁️ Ping a Cloudinary con su propio TTL (más largo), ya que es una llamada externa.
+     * Con app.storage.backend=local los archivos no pasan por Cloudinary y no se le consulta.
+     */
+    private ProbeResult probeCloudinary() {
+        if (!"cloudinary".equals(blobStore.backend())) {
+            return new ProbeResult(UP, 0, "Almacenamiento " + blobStore.backend() + " (sin Cloudinary)");
+        }
+
+        ProbeResult cached = cloudinaryResult;
+        if (cached != null && !isExpired(cached.getCheckedAt(), cloudinaryTtlMs)) {
+            return cached;
+        }
+
+        if (!blobStore.disponible()) {
+            // Con el circuito abierto no se añade otra llamada a un servicio que ya está fallando
+            ProbeResult abierto = new ProbeResult(DOWN, 0, "Circuito de almacenamiento abierto");
+            cloudinaryResult = abierto;
+            return abierto;
+        }
+
+        long start = System.nanoTime();
+        ProbeResult result;
+        try {
+            // El cliente HTTP interpreta "timeout" en milisegundos: con segundos cada ping
+            // expiraba a los pocos ms y file_storage salía siempre DOWN
+            int timeoutMs = cloudinaryTimeoutSeconds * 1000;
+            cloudinary.api().ping(ObjectUtils.asMap("timeout", timeoutMs));
+            result = new ProbeResult(UP, elapsedMs(start), "Cloudinary accesible");
+        } catch (Exception e) {
+            logger.warn("⚠️ Cloudinary no responde: {}", e.getMessage());
+            result = new ProbeResult(DOWN, elapsedMs(start), e.getMessage());
+        }
+        cloudinaryResult = result;
+        return result;
+    }
+
+    private static boolean isExpired(long checkedAt, long ttlMs) {
+        return System.currentTimeMillis() - checkedAt >= ttlMs;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Resultado de una sonda individual
+     */
+    public static class ProbeResult {
+        private final String status;
+        private final long latencyMs;
+        private final String detail;
+        private final long checkedAt;
+
+        public ProbeResult(String status, long latencyMs, String detail) {
+            this.status = status;
+            this.latencyMs = latencyMs;
+            this.detail = detail;
+            this.checkedAt = System.currentTimeMillis();
+        }
+
+        public String getStatus() { return status; }
+        public long getLatencyMs() { return latencyMs; }
+        public String getDetail() { return detail; }
+        public long getCheckedAt() { return checkedAt; }
+
+        public boolean isUp() { return UP.equals(status); }
+
+        @Override
+        public String toString() {
+            return status + " (" + latencyMs + " ms): " + detail;
+        }
+    }
+
+    /**
+     * Estado agregado del sistema en un instante
+     */
+    public static class HealthSnapshot {
+        private final String status;
+        private final Map<String, ProbeResult> components;
+        private final long checkedAt;
+
+        public HealthSnapshot(String status, Map<String, ProbeResult> components, long checkedAt) {
+            this.status = status;
+            this.components = components;
+            this.checkedAt = checkedAt;
+        }
+
+        public String getStatus() { return status; }
+        public Map<String, ProbeResult> getComponents() { return components; }
+        public long getCheckedAt() { return checkedAt; }
+
+        public boolean isDown() { return DOWN.equals(status); }
+    }
+}
@@ -0,0 +1,137 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.model.dto.ComentarioDTO;
+import com.usuario.backend.model.dto.FeedCursor;
+import com.usuario.backend.model.dto.FeedPage;
+import com.usuario.backend.model.entity.Comentario;
+import com.usuario.backend.repository.ComentarioRepository;
+import com.usuario.backend.service.upload.ProfileThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 💬 Hilos de comentarios de un anuncio: una sola consulta trae una página de comentarios
+ * raíz (keyset sobre fecha_creacion, id) junto con sus respuestas (acotadas por hilo), y el
+ * árbol se arma en memoria en O(n).
+ */
+@Service
+public class ComentarioService {
+
+    public static final int LIMITE_DEFAULT = 20;
+    public static final int LIMITE_MAX = 50;
+
+    @Autowired
+    private ComentarioRepository comentarioRepository;
+
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private EventosAulaService eventosAulaService;
+
+    @Autowired
+    private ProfileThumbnailService profileThumbnailService;
+
+    @Value("${app.comentarios.max-respuestas-por-hilo:100}")
+    private int maxRespuestasPorHilo;
+
+    /**
+     * Crea un comentario o una respuesta; el padre debe ser un comentario activo del mismo anuncio
+     */
+    @Transactional
+    public Comentario crearComentario(Integer usuarioId, Long anuncioId, String contenido, Long comentarioPadreId) {
+        if (comentarioPadreId != null
+                && !comentarioRepository.existsByIdAndAnuncioIdAndActivoTrue(comentarioPadreId, anuncioId)) {
+            throw new IllegalArgumentException("Comentario padre no válido");
+        }
+        Comentario comentario = comentarioRepository.save(
+                new Comentario(usuarioId, anuncioId, contenido, comentarioPadreId));
+        contadorService.registrarComentario(anuncioId, 1);
+        eventosAulaService.registrarComentario(anuncioId);
+        return comentario;
+    }
+
+    /**
+     * Página de hilos en orden cronológico; cursor null = primera página
+     */
+    public FeedPage<ComentarioDTO> getHilos(Long anuncioId, String cursor, Integer limit) {
+        int size = normalizarLimite(limit);
+        FeedCursor after = FeedCursor.decode(cursor);
+
+        List<ComentarioRepository.FilaHilo> resultado = after == null
+                ? comentarioRepository.findHilos(anuncioId, size + 1, maxRespuestasPorHilo)
+                : comentarioRepository.findHilosDespuesDe(anuncioId, after.fecha(), after.id(), size + 1, maxRespuestasPorHilo);
+
+        List<ComentarioDTO> filas = new ArrayList<>(resultado.size());
+        for (ComentarioRepository.FilaHilo f : resultado) {
+            boolean esRaiz = f.getComentarioPadreId() == null;
+            filas.add(new ComentarioDTO(
+                    f.getId(),
+                    f.getComentarioPadreId(),
+                    f.getContenido(),
+                    f.getUsuarioId(),
+                    f.getNombre() != null ? f.getNombre() + " " + f.getApellidos() : null,
+                    f.getProfileImageUrl(),
+                    new LinkedHashMap<>(),
+                    f.getFechaCreacion(),
+                    esRaiz && f.getTotalRespuestas() != null ? f.getTotalRespuestas().intValue() : null,
+                    new ArrayList<>()));
+        }
+
+        // Un solo cálculo por autor distinto (las variantes van cacheadas por clave)
+        Map<String, Map<String, String>> srcsets = profileThumbnailService.srcsets(
+                filas.stream().map(ComentarioDTO::autorImagen).toList());
+        for (ComentarioDTO fila : filas) {
+            if (fila.autorImagen() != null) {
+                fila.autorSrcset().putAll(srcsets.get(fila.autorImagen()));
+            }
+        }
+
+        return armarArbol(filas, size);
+    }
+
+    /**
+     * Enlaza cada fila con su padre usando un índice por id; las filas llegan ordenadas
+     * por fecha, así que raíces y respuestas quedan en orden cronológico.
+     */
+    private static FeedPage<ComentarioDTO> armarArbol(List<ComentarioDTO> filas, int size) {
+        Map<Long, ComentarioDTO> porId = new HashMap<>(filas.size() * 2);
+        for (ComentarioDTO fila : filas) {
+            porId.put(fila.id(), fila);
+        }
+
+        List<ComentarioDTO> raices = new ArrayList<>();
+        for (ComentarioDTO fila : filas) {
+            ComentarioDTO padre = fila.comentarioPadreId() != null ? porId.get(fila.comentarioPadreId()) : null;
+            if (padre != null) {
+                padre.respuestas().add(fila);
+            } else if (fila.comentarioPadreId() == null) {
+                raices.add(fila);
+            }
+        }
+
+        boolean hasMore = raices.size() > size;
+        List<ComentarioDTO> items = hasMore ? raices.subList(0, size) : raices;
+        String nextCursor = null;
+        if (hasMore) {
+            ComentarioDTO ultimo = items.get(items.size() - 1);
+            nextCursor = new FeedCursor(ultimo.fechaCreacion(), ultimo.id()).encode();
+        }
+        return new FeedPage<>(items, nextCursor, hasMore);
+    }
+
+    public static int normalizarLimite(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return LIMITE_DEFAULT;
+        }
+        return Math.min(limit, LIMITE_MAX);
+    }
+}
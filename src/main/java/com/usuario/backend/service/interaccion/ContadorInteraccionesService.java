@@ -0,0 +1,281 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.model.dto.ContadoresAnuncioDTO;
+import com.usuario.backend.repository.AnuncioRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 🔢 Contadores write-behind de likes y comentarios por anuncio.
+ * Las escrituras solo suman en LongAdders en memoria; un job periódico vuelca los deltas
+ * a anuncios.total_likes / total_comentarios con UPDATEs en batch. Las lecturas combinan
+ * la columna desnormalizada con el delta pendiente, sin COUNT sobre likes ni comentarios.
+ */
+@Service
+public class ContadorInteraccionesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContadorInteraccionesService.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE anuncios SET " +
+            "total_likes = GREATEST(0, COALESCE(total_likes, 0) + ?), " +
+            "total_comentarios = GREATEST(0, COALESCE(total_comentarios, 0) + ?) " +
+            "WHERE id = ?";
+
+    private static final String RECONCILIAR_SQL =
+            "UPDATE anuncios a SET " +
+            "total_likes = (SELECT COUNT(*) FROM likes l WHERE l.anuncio_id = a.id), " +
+            "total_comentarios = (SELECT COUNT(*) FROM comentarios c WHERE c.anuncio_id = a.id AND c.activo = true)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AnuncioRepository anuncioRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.counters.reconcile-on-startup:true}")
+    private boolean reconciliarAlIniciar;
+
+    private final ConcurrentHashMap<Long, Deltas> pendientes = new ConcurrentHashMap<>();
+
+    // Entradas retiradas en el último volcado; se vuelven a drenar una vez más por si
+    // algún hilo alcanzó a sumar después de retirarlas
+    private List<Deltas> retiradas = new ArrayList<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder filasVolcadas = new LongAdder();
+    private final LongAdder volcados = new LongAdder();
+
+    // ========== ESCRITURA ==========
+
+    public void registrarLike(Long anuncioId, int delta) {
+        alConfirmar(() -> deltas(anuncioId).likes.add(delta));
+    }
+
+    public void registrarComentario(Long anuncioId, int delta) {
+        alConfirmar(() -> deltas(anuncioId).comentarios.add(delta));
+    }
+
+    // ========== LECTURA ==========
+
+    /**
+     * Contadores actuales: columna desnormalizada + delta pendiente de volcar
+     */
+    public ContadoresAnuncioDTO getContadores(Long anuncioId) {
+        ContadoresAnuncioDTO base = anuncioRepository.findContadoresById(anuncioId);
+        long likes = getLikesPendientes(anuncioId);
+        long comentarios = getComentariosPendientes(anuncioId);
+        if (base != null) {
+            likes += base.totalLikes() != null ? base.totalLikes() : 0;
+            comentarios += base.totalComentarios() != null ? base.totalComentarios() : 0;
+        }
+        return new ContadoresAnuncioDTO(anuncioId, (int) Math.max(0, likes), (int) Math.max(0, comentarios));
+    }
+
+    /**
+     * Contadores de varios anuncios con una sola consulta (anuncios inexistentes quedan fuera)
+     */
+    public Map<Long, ContadoresAnuncioDTO> getContadores(Collection<Long> anuncioIds) {
+        Map<Long, ContadoresAnuncioDTO> resultado = new HashMap<>();
+        if (anuncioIds.isEmpty()) {
+            return resultado;
+        }
+        for (ContadoresAnuncioDTO base : anuncioRepository.findContadoresByIdIn(anuncioIds)) {
+            Long id = base.anuncioId();
+            long likes = (base.totalLikes() != null ? base.totalLikes() : 0) + getLikesPendientes(id);
+            long comentarios = (base.totalComentarios() != null ? base.totalComentarios() : 0) + getComentariosPendientes(id);
+            resultado.put(id, new ContadoresAnuncioDTO(id, (int) Math.max(0, likes), (int) Math.max(0, comentarios)));
+        }
+        return resultado;
+    }
+
+    /**
+     * Delta de likes aún no volcado a la columna total_likes
+     */
+    public long getLikesPendientes(Long anuncioId) {
+        Deltas d = pendientes.get(anuncioId);
+        return d != null ? d.likes.sum() : 0;
+    }
+
+    /**
+     * Delta de comentarios aún no volcado a la columna total_comentarios
+     */
+    public long getComentariosPendientes(Long anuncioId) {
+        Deltas d = pendientes.get(anuncioId);
+        return d != null ? d.comentarios.sum() : 0;
+    }
+
+    // ========== VOLCADO ==========
+
+    /**
+     * Vuelca los deltas acumulados en un único batch de UPDATEs
+     */
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Object[]> batch = new ArrayList<>();
+            for (Deltas d : retiradas) {
+                agregarAlBatch(batch, d);
+            }
+            List<Deltas> nuevasRetiradas = new ArrayList<>();
+
+            for (Map.Entry<Long, Deltas> entry : pendientes.entrySet()) {
+                Deltas d = entry.getValue();
+                if (!agregarAlBatch(batch, d) && pendientes.remove(entry.getKey(), d)) {
+                    // Sin actividad desde el último volcado: se retira del mapa
+                    nuevasRetiradas.add(d);
+                }
+            }
+            retiradas = nuevasRetiradas;
+
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                // En una transacción: si falla, no queda aplicada ninguna fila y se pueden
+                // devolver todos los deltas sin sumarlos dos veces
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+                filasVolcadas.add(batch.size());
+                volcados.increment();
+                logger.debug("🔢 Contadores volcados para {} anuncios", batch.size());
+            } catch (Exception e) {
+                logger.error("❌ Error al volcar contadores, se reintentará: {}", e.getMessage());
+                for (Object[] fila : batch) {
+                    Deltas d = deltas((Long) fila[2]);
+                    d.likes.add((Long) fila[0]);
+                    d.comentarios.add((Long) fila[1]);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Recalcula las columnas desde las tablas de likes y comentarios para corregir desvíos
+     * (deltas perdidos por un reinicio, datos previos a este servicio, etc.)
+     *
+     * El COUNT ya incluye todo lo confirmado, también lo que aún estaba como delta pendiente,
+     * así que los deltas se descartan en vez de volcarse. Bajo el mismo lock que flush para
+     * que ningún volcado se cuele entre el recuento y el descarte.
+     */
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 30 4 * * *}")
+    public void reconciliar() {
+        flushLock.lock();
+        try {
+            int filas = jdbcTemplate.update(RECONCILIAR_SQL);
+            descartarPendientes();
+            logger.info("🔢 Contadores reconciliados en {} anuncios", filas);
+        } catch (Exception e) {
+            logger.error("❌ Error al reconciliar contadores: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Al arrancar se recalculan las columnas: los deltas en memoria de la instancia
+     * anterior se pierden en un reinicio no ordenado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarAlArrancar() {
+        if (reconciliarAlIniciar) {
+            reconciliar();
+        }
+    }
+
+    @PreDestroy
+    public void flushAlApagar() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "anunciosPendientes", pendientes.size(),
+            "filasVolcadas", filasVolcadas.sum(),
+            "volcados", volcados.sum()
+        );
+    }
+
+    // ========== AUXILIARES ==========
+
+    private Deltas deltas(Long anuncioId) {
+        return pendientes.computeIfAbsent(anuncioId, id -> new Deltas(id));
+    }
+
+    private void descartarPendientes() {
+        for (Deltas d : retiradas) {
+            d.likes.reset();
+            d.comentarios.reset();
+        }
+        retiradas = new ArrayList<>();
+        for (Deltas d : pendientes.values()) {
+            d.likes.reset();
+            d.comentarios.reset();
+        }
+    }
+
+    /**
+     * Drena los deltas al batch; devuelve false si no había nada que volcar
+     */
+    private static boolean agregarAlBatch(List<Object[]> batch, Deltas d) {
+        long likes = d.likes.sumThenReset();
+        long comentarios = d.comentarios.sumThenReset();
+        if (likes == 0 && comentarios == 0) {
+            return false;
+        }
+        batch.add(new Object[]{likes, comentarios, d.anuncioId});
+        return true;
+    }
+
+    /**
+     * Aplica el cambio solo cuando la transacción que lo originó hace commit
+     */
+    static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private static final class Deltas {
+        private final Long anuncioId;
+        private final LongAdder likes = new LongAdder();
+        private final LongAdder comentarios = new LongAdder();
+
+        private Deltas(Long anuncioId) {
+            this.anuncioId = anuncioId;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.model.dto.EngagementAnuncioDTO;
+import com.usuario.backend.repository.EngagementAnuncioRepository;
+import com.usuario.backend.service.interaccion.LecturaIngestionService.ParLectura;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 📈 Modelo de lectura de engagement por anuncio (alcance, lecturas y likes de estudiantes
+ * inscritos). Los likes y lecturas lo actualizan con un UPDATE condicionado a que el usuario
+ * sea estudiante activo del aula, y un reconciliador lo recalcula periódicamente, así el
+ * panel del profesor es una sola consulta indexada en lugar de tres COUNT por fila.
+ */
+@Service
+public class EngagementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EngagementService.class);
+
+    private static final String ES_ESTUDIANTE_DEL_AULA =
+            "EXISTS (SELECT 1 FROM aula_estudiantes ae WHERE ae.aula_id = e.aula_id " +
+            "AND ae.estudiante_id = ? AND ae.estado = 'activo')";
+
+    private static final String LIKE_SQL =
+            "UPDATE engagement_anuncios e SET likes = GREATEST(0, likes + ?), fecha_actualizacion = NOW() " +
+            "WHERE e.anuncio_id = ? AND " + ES_ESTUDIANTE_DEL_AULA;
+
+    private static final String LECTURA_SQL =
+            "UPDATE engagement_anuncios e SET lecturas = lecturas + 1, fecha_actualizacion = NOW() " +
+            "WHERE e.anuncio_id = ? AND " + ES_ESTUDIANTE_DEL_AULA;
+
+    private static final String ALTA_SQL =
+            "INSERT IGNORE INTO engagement_anuncios (anuncio_id, aula_id, alcance, lecturas, likes, fecha_actualizacion) " +
+            "SELECT ?, ?, COUNT(*), 0, 0, NOW() FROM aula_estudiantes ae WHERE ae.aula_id = ? AND ae.estado = 'activo'";
+
+    // Crea las filas que falten (anuncios anteriores a la tabla o altas fallidas). IGNORE porque
+    // un anuncio publicado a la vez puede insertar su fila con ALTA_SQL entre el NOT EXISTS y el INSERT
+    private static final String RECONCILIAR_ALTAS_SQL =
+            "INSERT IGNORE INTO engagement_anuncios (anuncio_id, aula_id, alcance, lecturas, likes, fecha_actualizacion) " +
+            "SELECT a.id, a.aula_id, 0, 0, 0, NOW() FROM anuncios a " +
+            "WHERE a.aula_id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM engagement_anuncios x WHERE x.anuncio_id = a.id)";
+
+    private static final String RECONCILIAR_SQL =
+            "UPDATE engagement_anuncios e SET " +
+            "alcance = (SELECT COUNT(*) FROM aula_estudiantes ae WHERE ae.aula_id = e.aula_id AND ae.estado = 'activo'), " +
+            "lecturas = (SELECT COUNT(*) FROM lecturas l JOIN aula_estudiantes ae " +
+            "  ON ae.estudiante_id = l.usuario_id AND ae.aula_id = e.aula_id AND ae.estado = 'activo' " +
+            "  WHERE l.anuncio_id = e.anuncio_id), " +
+            "likes = (SELECT COUNT(*) FROM likes k JOIN aula_estudiantes ae " +
+            "  ON ae.estudiante_id = k.usuario_id AND ae.aula_id = e.aula_id AND ae.estado = 'activo' " +
+            "  WHERE k.anuncio_id = e.anuncio_id), " +
+            "fecha_actualizacion = NOW()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EngagementAnuncioRepository engagementAnuncioRepository;
+
+    @Value("${app.engagement.reconcile-on-startup:true}")
+    private boolean reconciliarAlIniciar;
+
+    // ========== LECTURA ==========
+
+    @Transactional(readOnly = true)
+    public List<EngagementAnuncioDTO> getPanelDeAula(Integer aulaId) {
+        return engagementAnuncioRepository.findPanelDeAula(aulaId);
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Alta de la fila al publicar, con el alcance actual del aula. Tras el commit, como los
+     * likes: un fallo no debe revertir el anuncio y la reconciliación crea la fila que falte.
+     */
+    public void registrarAnuncio(Integer aulaId, Long anuncioId) {
+        ContadorInteraccionesService.alConfirmar(() -> {
+            try {
+                jdbcTemplate.update(ALTA_SQL, anuncioId, aulaId, aulaId);
+            } catch (Exception e) {
+                logger.error("❌ Error al crear engagement del anuncio {}: {}", anuncioId, e.getMessage());
+            }
+        });
+    }
+
+    public void registrarLike(Integer usuarioId, Long anuncioId, int delta) {
+        ContadorInteraccionesService.alConfirmar(() -> {
+            try {
+                jdbcTemplate.update(LIKE_SQL, delta, anuncioId, usuarioId);
+            } catch (Exception e) {
+                logger.error("❌ Error al actualizar likes de engagement del anuncio {}: {}", anuncioId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lecturas nuevas de un lote de ingesta, en un solo batch. Corre dentro de la transacción
+     * del volcado y no captura errores: si falla, el lote se revierte entero y se reintenta.
+     */
+    public void registrarLecturas(Collection<ParLectura> nuevas) {
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        // Por anuncio, para que dos volcados bloqueen las filas en el mismo orden
+        List<Object[]> filas = nuevas.stream()
+                .sorted(Comparator.comparing(ParLectura::anuncioId).thenComparing(ParLectura::usuarioId))
+                .map(par -> new Object[]{par.anuncioId(), par.usuarioId()})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(LECTURA_SQL, filas);
+    }
+
+    // ========== RECONCILIACIÓN ==========
+
+    /**
+     * 🔧 Recalcula todo desde las tablas fuente; corrige altas o bajas de estudiantes
+     * y cualquier actualización perdida
+     */
+    @Scheduled(cron = "${app.engagement.reconcile-cron:0 0 5 * * *}")
+    public void reconciliar() {
+        long inicio = System.currentTimeMillis();
+        int altas = jdbcTemplate.update(RECONCILIAR_ALTAS_SQL);
+        int filas = jdbcTemplate.update(RECONCILIAR_SQL);
+        logger.info("🔧 Engagement reconciliado: {} altas, {} filas en {} ms",
+                altas, filas, System.currentTimeMillis() - inicio);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarAlArrancar() {
+        if (!reconciliarAlIniciar) {
+            return;
+        }
+        try {
+            reconciliar();
+        } catch (Exception e) {
+            logger.error("❌ Error al reconciliar engagement al arrancar: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.model.dto.AnuncioStatsDTO;
+import com.usuario.backend.model.dto.ContadoresAnuncioDTO;
+import com.usuario.backend.repository.LecturaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 📊 Estadísticas de interacción para una página completa de anuncios en un número
+ * fijo de consultas: contadores, likes del usuario y lecturas del usuario.
+ */
+@Service
+public class EstadisticasInteraccionService {
+
+    public static final int MAX_ANUNCIOS_POR_LOTE = 100;
+
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private LikedSetService likedSetService;
+
+    @Autowired
+    private LecturaRepository lecturaRepository;
+
+    @Autowired
+    private LecturaIngestionService lecturaIngestionService;
+
+    /**
+     * Estadísticas de un solo anuncio: el like sale del liked-set y la lectura de un exists
+     */
+    @Transactional(readOnly = true)
+    public AnuncioStatsDTO getStats(Integer usuarioId, Long anuncioId) {
+        ContadoresAnuncioDTO c = contadorService.getContadores(anuncioId);
+        return new AnuncioStatsDTO(
+                anuncioId,
+                c.totalLikes(),
+                c.totalComentarios(),
+                likedSetService.contiene(usuarioId, anuncioId),
+                lecturaRepository.existsByUsuarioIdAndAnuncioId(usuarioId, anuncioId)
+                        || lecturaIngestionService.estaPendiente(usuarioId, anuncioId));
+    }
+
+    /**
+     * Devuelve las estadísticas en el mismo orden recibido, sin duplicados
+     */
+    @Transactional(readOnly = true)
+    public List<AnuncioStatsDTO> getStatsBatch(Integer usuarioId, List<Long> anuncioIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : anuncioIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > MAX_ANUNCIOS_POR_LOTE) {
+            throw new IllegalArgumentException("Máximo " + MAX_ANUNCIOS_POR_LOTE + " anuncios por consulta");
+        }
+
+        Map<Long, ContadoresAnuncioDTO> contadores = contadorService.getContadores(ids);
+        Set<Long> conLike = new HashSet<>(likedSetService.intersectar(usuarioId, ids));
+        Set<Long> leidos = new HashSet<>(lecturaRepository.findAnuncioIdsLeidos(usuarioId, ids));
+
+        List<AnuncioStatsDTO> stats = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ContadoresAnuncioDTO c = contadores.get(id);
+            stats.add(new AnuncioStatsDTO(
+                    id,
+                    c != null ? c.totalLikes() : 0,
+                    c != null ? c.totalComentarios() : 0,
+                    conLike.contains(id),
+                    leidos.contains(id) || lecturaIngestionService.estaPendiente(usuarioId, id)));
+        }
+        return stats;
+    }
+}
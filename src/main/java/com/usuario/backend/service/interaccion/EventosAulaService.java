@@ -0,0 +1,402 @@
+package com.usuario.backend.service.interaccion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usuario.backend.model.dto.ContadoresAnuncioDTO;
+import com.usuario.backend.model.dto.EventoAnuncioDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 📡 Stream SSE por aula con likes, comentarios y anuncios nuevos.
+ * Los cambios se acumulan por anuncio y cada ventana de coalescencia (250 ms por defecto)
+ * sale como un solo frame por aula: una ráfaga de 40 likes llega como un único evento con
+ * el total final. Cada suscripción tiene su propia cola, drenada por un pool pequeño, así
+ * que un cliente lento no frena a los demás y ningún stream retiene un hilo de request.
+ * Un envío que se queda bloqueado más de timeout-envio-ms da de baja al cliente y el pool
+ * recibe un hilo de reemplazo mientras ese envío no vuelva.
+ */
+@Service
+public class EventosAulaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventosAulaService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.max-cola-por-cliente:50}")
+    private int maxColaPorCliente;
+
+    @Value("${app.sse.hilos-envio:4}")
+    private int hilosEnvio;
+
+    @Value("${app.sse.timeout-envio-ms:5000}")
+    private long timeoutEnvioMs;
+
+    @Value("${app.sse.max-envios-bloqueados:16}")
+    private int maxEnviosBloqueados;
+
+    private final ConcurrentHashMap<Integer, Set<Suscripcion>> suscripcionesPorAula = new ConcurrentHashMap<>();
+    private final AtomicInteger totalSuscripciones = new AtomicInteger();
+
+    // Cambios de la ventana en curso, por anuncio; se mutan solo dentro de compute()
+    private final ConcurrentHashMap<Long, Cambio> pendientes = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor envioExecutor;
+
+    // Envíos que superaron el timeout y aún no han vuelto (cada uno retiene un hilo del pool)
+    private final AtomicInteger enviosBloqueados = new AtomicInteger();
+
+    private final LongAdder eventosRecibidos = new LongAdder();
+    private final LongAdder framesEmitidos = new LongAdder();
+    private final LongAdder envios = new LongAdder();
+    private final LongAdder clientesLentos = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        envioExecutor = new ThreadPoolExecutor(hilosEnvio, hilosEnvio, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "sse-envio-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void apagar() {
+        suscripcionesPorAula.values().forEach(subs -> subs.forEach(this::cerrar));
+        envioExecutor.shutdownNow();
+    }
+
+    // ========== SUSCRIPCIÓN ==========
+
+    /**
+     * Abre un stream para el aula; el llamador ya validó el acceso
+     */
+    public SseEmitter suscribir(Integer aulaId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscripcion s = new Suscripcion(aulaId, emitter);
+        suscripcionesPorAula.computeIfAbsent(aulaId, k -> ConcurrentHashMap.newKeySet()).add(s);
+        totalSuscripciones.incrementAndGet();
+
+        emitter.onCompletion(() -> quitar(s));
+        emitter.onTimeout(() -> quitar(s));
+        emitter.onError(e -> quitar(s));
+
+        encolar(s, SseEmitter.event().name("conectado").data("{\"aulaId\":" + aulaId + "}", MediaType.APPLICATION_JSON).build());
+        return emitter;
+    }
+
+    // ========== REGISTRO DE CAMBIOS (tras commit) ==========
+
+    public void registrarLike(Long anuncioId, int delta) {
+        registrar(anuncioId, null, c -> c.likes += delta);
+    }
+
+    public void registrarComentario(Long anuncioId) {
+        registrar(anuncioId, null, c -> c.comentarios++);
+    }
+
+    public void registrarAnuncio(Integer aulaId, Long anuncioId) {
+        registrar(anuncioId, aulaId, c -> c.nuevo = true);
+    }
+
+    private void registrar(Long anuncioId, Integer aulaId, Consumer<Cambio> accion) {
+        if (totalSuscripciones.get() == 0) {
+            return;
+        }
+        ContadorInteraccionesService.alConfirmar(() -> {
+            eventosRecibidos.increment();
+            pendientes.compute(anuncioId, (id, c) -> {
+                if (c == null) {
+                    c = new Cambio();
+                }
+                if (aulaId != null) {
+                    c.aulaId = aulaId;
+                }
+                accion.accept(c);
+                return c;
+            });
+        });
+    }
+
+    // ========== EMISIÓN ==========
+
+    /**
+     * Cierra la ventana: un frame por aula con todos sus anuncios cambiados
+     */
+    @Scheduled(fixedDelayString = "${app.sse.coalesce-ms:250}")
+    public void emitir() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<Long, Cambio> cambios = new HashMap<>();
+        for (Long anuncioId : pendientes.keySet()) {
+            Cambio c = pendientes.remove(anuncioId);
+            if (c != null) {
+                cambios.put(anuncioId, c);
+            }
+        }
+        if (cambios.isEmpty() || totalSuscripciones.get() == 0) {
+            return;
+        }
+
+        try {
+            resolverAulas(cambios);
+            Map<Long, ContadoresAnuncioDTO> totales = contadorService.getContadores(cambios.keySet());
+
+            Map<Integer, List<EventoAnuncioDTO>> porAula = new HashMap<>();
+            cambios.forEach((anuncioId, c) -> {
+                if (c.aulaId == null || !suscripcionesPorAula.containsKey(c.aulaId)) {
+                    return;
+                }
+                ContadoresAnuncioDTO t = totales.get(anuncioId);
+                porAula.computeIfAbsent(c.aulaId, k -> new ArrayList<>()).add(new EventoAnuncioDTO(
+                        anuncioId, c.nuevo, c.likes,
+                        t != null ? t.totalLikes() : 0,
+                        c.comentarios,
+                        t != null ? t.totalComentarios() : 0));
+            });
+
+            for (Map.Entry<Integer, List<EventoAnuncioDTO>> entry : porAula.entrySet()) {
+                // Se serializa una vez por aula y el mismo frame se comparte entre suscriptores
+                Set<DataWithMediaType> frame = SseEmitter.event()
+                        .name("interacciones")
+                        .data(objectMapper.writeValueAsString(entry.getValue()), MediaType.APPLICATION_JSON)
+                        .build();
+                framesEmitidos.increment();
+                for (Suscripcion s : suscripcionesPorAula.getOrDefault(entry.getKey(), Set.of())) {
+                    encolar(s, frame);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("❌ Error al emitir eventos SSE: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Comentario SSE periódico para que proxies y balanceadores no corten streams inactivos
+     */
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:20000}")
+    public void heartbeat() {
+        if (totalSuscripciones.get() == 0) {
+            return;
+        }
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        suscripcionesPorAula.values().forEach(subs -> subs.forEach(s -> encolar(s, ping)));
+    }
+
+    /**
+     * ⏱️ Da de baja a los clientes con un envío bloqueado más de timeout-envio-ms; el emitter
+     * lo completa el hilo de envío cuando el envío vuelva (ver darDeBaja)
+     */
+    @Scheduled(fixedDelayString = "${app.sse.revision-envios-ms:1000}")
+    public void revisarEnvios() {
+        long ahora = System.currentTimeMillis();
+        suscripcionesPorAula.values().forEach(subs -> subs.forEach(s -> {
+            long desde = s.enviandoDesde;
+            if (desde != 0 && ahora - desde > timeoutEnvioMs && s.bloqueado.compareAndSet(false, true)) {
+                clientesLentos.increment();
+                darDeBaja(s);
+                enviosBloqueados.incrementAndGet();
+                ajustarHilos();
+                logger.warn("🐢 Cliente SSE del aula {} desconectado: envío bloqueado más de {} ms", s.aulaId, timeoutEnvioMs);
+            }
+        }));
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "suscripciones", totalSuscripciones.get(),
+            "aulasConSuscriptores", suscripcionesPorAula.size(),
+            "eventosRecibidos", eventosRecibidos.sum(),
+            "framesEmitidos", framesEmitidos.sum(),
+            "envios", envios.sum(),
+            "clientesLentosDesconectados", clientesLentos.sum(),
+            "enviosBloqueados", enviosBloqueados.get()
+        );
+    }
+
+    // ========== AUXILIARES ==========
+
+    /**
+     * Completa en una sola consulta el aula de los anuncios que solo recibieron likes/comentarios
+     */
+    private void resolverAulas(Map<Long, Cambio> cambios) {
+        List<Long> sinAula = new ArrayList<>();
+        cambios.forEach((id, c) -> {
+            if (c.aulaId == null) {
+                sinAula.add(id);
+            }
+        });
+        if (sinAula.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(
+                "SELECT id, aula_id FROM anuncios WHERE aula_id IS NOT NULL AND id IN (" +
+                String.join(", ", Collections.nCopies(sinAula.size(), "?")) + ")",
+                rs -> {
+                    cambios.get(rs.getLong("id")).aulaId = rs.getInt("aula_id");
+                },
+                sinAula.toArray());
+    }
+
+    /**
+     * Encola sin bloquear; si el cliente acumula demasiados frames se le desconecta
+     * (EventSource reconecta solo y recarga el estado)
+     */
+    private void encolar(Suscripcion s, Set<DataWithMediaType> frame) {
+        if (s.cerrada.get()) {
+            return;
+        }
+        if (s.enCola.incrementAndGet() > maxColaPorCliente) {
+            clientesLentos.increment();
+            darDeBaja(s);
+            return;
+        }
+        s.cola.add(frame);
+        programar(s);
+    }
+
+    /**
+     * Quita la suscripción y deja que el hilo de envío complete el emitter: complete() y send()
+     * comparten lock, así que completarlo aquí esperaría a un envío bloqueado
+     */
+    private void darDeBaja(Suscripcion s) {
+        quitar(s);
+        programar(s);
+    }
+
+    private void programar(Suscripcion s) {
+        if (s.drenando.compareAndSet(false, true)) {
+            envioExecutor.execute(() -> drenar(s));
+        }
+    }
+
+    private void drenar(Suscripcion s) {
+        do {
+            Set<DataWithMediaType> frame;
+            while (!s.cerrada.get() && (frame = s.cola.poll()) != null) {
+                s.enCola.decrementAndGet();
+                s.enviandoDesde = System.currentTimeMillis();
+                try {
+                    s.emitter.send(frame);
+                    envios.increment();
+                } catch (Exception e) {
+                    // Cliente desconectado: se deja drenando = true para no volver a programarlo
+                    cerrar(s);
+                    return;
+                } finally {
+                    s.enviandoDesde = 0;
+                    if (s.bloqueado.compareAndSet(true, false)) {
+                        enviosBloqueados.decrementAndGet();
+                        ajustarHilos();
+                    }
+                }
+            }
+            if (s.cerrada.get()) {
+                // Dado de baja (cola llena o envío bloqueado): ya no hay envío en curso
+                cerrar(s);
+                return;
+            }
+            s.drenando.set(false);
+        } while ((!s.cola.isEmpty() || s.cerrada.get()) && s.drenando.compareAndSet(false, true));
+    }
+
+    /**
+     * Un hilo base por cada envío bloqueado, hasta max-envios-bloqueados de más
+     */
+    private synchronized void ajustarHilos() {
+        int hilos = hilosEnvio + Math.min(Math.max(0, enviosBloqueados.get()), maxEnviosBloqueados);
+        if (hilos > envioExecutor.getMaximumPoolSize()) {
+            envioExecutor.setMaximumPoolSize(hilos);
+            envioExecutor.setCorePoolSize(hilos);
+        } else {
+            envioExecutor.setCorePoolSize(hilos);
+            envioExecutor.setMaximumPoolSize(hilos);
+        }
+    }
+
+    private void cerrar(Suscripcion s) {
+        quitar(s);
+        try {
+            s.emitter.complete();
+        } catch (Exception ignored) {
+            // ya estaba cerrado
+        }
+    }
+
+    private void quitar(Suscripcion s) {
+        if (!s.cerrada.compareAndSet(false, true)) {
+            return;
+        }
+        s.cola.clear();
+        suscripcionesPorAula.computeIfPresent(s.aulaId, (k, subs) -> {
+            subs.remove(s);
+            return subs.isEmpty() ? null : subs;
+        });
+        totalSuscripciones.decrementAndGet();
+    }
+
+    /**
+     * Acumulado de una ventana para un anuncio
+     */
+    private static final class Cambio {
+        private Integer aulaId;
+        private boolean nuevo;
+        private int likes;
+        private int comentarios;
+    }
+
+    private static final class Suscripcion {
+        private final Integer aulaId;
+        private final SseEmitter emitter;
+        private final ConcurrentLinkedQueue<Set<DataWithMediaType>> cola = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger enCola = new AtomicInteger();
+        private final AtomicBoolean drenando = new AtomicBoolean(false);
+        private final AtomicBoolean cerrada = new AtomicBoolean(false);
+        private final AtomicBoolean bloqueado = new AtomicBoolean(false);
+        // Inicio del envío en curso (0 si no está enviando)
+        private volatile long enviandoDesde;
+
+        private Suscripcion(Integer aulaId, SseEmitter emitter) {
+            this.aulaId = aulaId;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.usuario.backend.service.interaccion;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 👁️ Ingesta asíncrona de lecturas: markAsRead solo encola el par (usuario, anuncio) en
+ * un buffer acotado y deduplicado; se vuelca cada N ms o al llegar a M entradas con un
+ * batch de INSERT IGNORE, en lugar de un SELECT + INSERT por cada anuncio visto.
+ * Las lecturas realmente nuevas de cada lote (las que el INSERT insertó) descuentan del
+ * contador de no leídos y suman al engagement del anuncio, en la misma transacción.
+ */
+@Service
+public class LecturaIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LecturaIngestionService.class);
+
+    /**
+     * Qué hacer cuando el buffer está lleno
+     */
+    public enum PoliticaDesborde {
+        DESCARTAR_ANTIGUA, RECHAZAR
+    }
+
+    public record ParLectura(Integer usuarioId, Long anuncioId) {}
+
+    // INSERT ... SELECT y no VALUES: con rewriteBatchedStatements el driver de MySQL junta
+    // los VALUES del batch en un solo INSERT y deja de informar qué filas se insertaron
+    private static final String INSERTAR_SQL =
+            "INSERT IGNORE INTO lecturas (usuario_id, anuncio_id, fecha_lectura) SELECT ?, ?, ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoLeidosService noLeidosService;
+
+    @Autowired
+    private EngagementService engagementService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.lecturas.capacidad:50000}")
+    private int capacidad;
+
+    @Value("${app.lecturas.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${app.lecturas.politica-desborde:DESCARTAR_ANTIGUA}")
+    private PoliticaDesborde politica;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashSet<ParLectura> buffer = new LinkedHashSet<>();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lecturas-flush");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean flushProgramado = new AtomicBoolean(false);
+
+    private final LongAdder recibidas = new LongAdder();
+    private final LongAdder deduplicadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder insertadas = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+
+    /**
+     * Encola una lectura. Devuelve false solo si la política es RECHAZAR y el buffer está lleno.
+     */
+    public boolean registrar(Integer usuarioId, Long anuncioId) {
+        return registrar(usuarioId, List.of(anuncioId)) == 1;
+    }
+
+    /**
+     * Encola varias lecturas del mismo usuario; devuelve cuántas se aceptaron
+     */
+    public int registrar(Integer usuarioId, List<Long> anuncioIds) {
+        int aceptadas = 0;
+        boolean lleno;
+        lock.lock();
+        try {
+            for (Long anuncioId : anuncioIds) {
+                if (anuncioId == null) {
+                    continue;
+                }
+                recibidas.increment();
+                ParLectura par = new ParLectura(usuarioId, anuncioId);
+                if (buffer.contains(par)) {
+                    deduplicadas.increment();
+                    aceptadas++;
+                    continue;
+                }
+                if (buffer.size() >= capacidad) {
+                    if (politica == PoliticaDesborde.RECHAZAR) {
+                        rechazadas.increment();
+                        continue;
+                    }
+                    Iterator<ParLectura> masAntigua = buffer.iterator();
+                    masAntigua.next();
+                    masAntigua.remove();
+                    descartadas.increment();
+                }
+                buffer.add(par);
+                aceptadas++;
+            }
+            lleno = buffer.size() >= tamanoLote;
+        } finally {
+            lock.unlock();
+        }
+
+        if (lleno && flushProgramado.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushProgramado.set(false);
+                flush();
+            });
+        }
+        return aceptadas;
+    }
+
+    /**
+     * True si la lectura sigue en el buffer (aún no persistida)
+     */
+    public boolean estaPendiente(Integer usuarioId, Long anuncioId) {
+        lock.lock();
+        try {
+            return buffer.contains(new ParLectura(usuarioId, anuncioId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vuelca el buffer por lotes. Cada lote se inserta y descuenta en una transacción y solo
+     * sale del buffer tras el commit: si algo falla se reintenta entero y, como lo que decide
+     * qué lecturas son nuevas es el propio INSERT, un reintento no descuenta dos veces.
+     */
+    @Scheduled(fixedDelayString = "${app.lecturas.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<ParLectura> lote;
+        while (!(lote = tomarLote()).isEmpty()) {
+            try {
+                List<ParLectura> pendientes = lote;
+                List<ParLectura> nuevas = transactionTemplate.execute(status -> {
+                    List<ParLectura> insertadasLote = insertarLote(pendientes);
+                    noLeidosService.registrarLecturas(insertadasLote);
+                    engagementService.registrarLecturas(insertadasLote);
+                    return insertadasLote;
+                });
+                insertadas.add(nuevas.size());
+                lotes.increment();
+                quitarDelBuffer(lote);
+            } catch (Exception e) {
+                errores.increment();
+                logger.error("❌ Error al volcar {} lecturas, se reintentará: {}", lote.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void apagar() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        int pendientes;
+        lock.lock();
+        try {
+            pendientes = buffer.size();
+        } finally {
+            lock.unlock();
+        }
+        return Map.of(
+            "pendientes", pendientes,
+            "capacidad", capacidad,
+            "politica", politica.name(),
+            "recibidas", recibidas.sum(),
+            "deduplicadas", deduplicadas.sum(),
+            "descartadas", descartadas.sum(),
+            "rechazadas", rechazadas.sum(),
+            "insertadas", insertadas.sum(),
+            "lotes", lotes.sum(),
+            "errores", errores.sum()
+        );
+    }
+
+    // ========== AUXILIARES ==========
+
+    /**
+     * Copia (sin retirar) las entradas más antiguas; se retiran solo tras insertar con éxito
+     */
+    private List<ParLectura> tomarLote() {
+        lock.lock();
+        try {
+            List<ParLectura> lote = new ArrayList<>(Math.min(buffer.size(), tamanoLote));
+            Iterator<ParLectura> it = buffer.iterator();
+            while (it.hasNext() && lote.size() < tamanoLote) {
+                lote.add(it.next());
+            }
+            return lote;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void quitarDelBuffer(List<ParLectura> lote) {
+        lock.lock();
+        try {
+            lote.forEach(buffer::remove);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserta el lote y devuelve los pares que no existían (recuento 1 en el batch);
+     * un par ya registrado, también por otra instancia a la vez, devuelve 0.
+     * Si el driver no informa un recuento por fila no se puede saber qué descontar, así que
+     * se lanza para que la transacción se revierta y el lote siga en el buffer.
+     */
+    private List<ParLectura> insertarLote(List<ParLectura> lote) {
+        // En el orden del índice único (usuario, anuncio), igual en todos los volcados
+        List<ParLectura> ordenado = new ArrayList<>(lote);
+        ordenado.sort(Comparator.comparing(ParLectura::usuarioId).thenComparing(ParLectura::anuncioId));
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> filas = new ArrayList<>(ordenado.size());
+        for (ParLectura par : ordenado) {
+            filas.add(new Object[]{par.usuarioId(), par.anuncioId(), ahora});
+        }
+        int[] resultados = jdbcTemplate.batchUpdate(INSERTAR_SQL, filas);
+        if (resultados.length != ordenado.size()) {
+            throw new IllegalStateException("El batch de lecturas devolvió " + resultados.length +
+                    " recuentos para " + ordenado.size() + " filas");
+        }
+        List<ParLectura> nuevas = new ArrayList<>(ordenado.size());
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] < 0) {
+                // SUCCESS_NO_INFO o EXECUTE_FAILED
+                throw new IllegalStateException("Recuento no válido (" + resultados[i] +
+                        ") en la fila " + i + " del batch de lecturas");
+            }
+            if (resultados[i] > 0) {
+                nuevas.add(ordenado.get(i));
+            }
+        }
+        return nuevas;
+    }
+}
@@ -0,0 +1,96 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.repository.LikeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ❤️ Likes sin lectura previa: cada operación es una sola sentencia y usa el número
+ * de filas afectadas para saber si hubo cambio, así los dobles clics no chocan con la
+ * restricción única (usuario_id, anuncio_id).
+ *
+ * Las escrituras van en READ_COMMITTED: en REPEATABLE READ un DELETE que no encuentra fila
+ * toma un gap lock sobre el índice único y dos toggles simultáneos se bloquean mutuamente al
+ * pedir el insert-intention lock (deadlock). En READ_COMMITTED no hay gap locks: el segundo
+ * INSERT IGNORE espera al primero y simplemente no inserta.
+ */
+@Service
+public class LikeService {
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private ContadorInteraccionesService contadorService;
+
+    @Autowired
+    private EventosAulaService eventosAulaService;
+
+    @Autowired
+    private EngagementService engagementService;
+
+    @Autowired
+    private LikedSetService likedSetService;
+
+    /**
+     * Marca el like; devuelve true si no existía
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public boolean darLike(Integer usuarioId, Long anuncioId) {
+        boolean insertado = likeRepository.insertarSiNoExiste(usuarioId, anuncioId) > 0;
+        if (insertado) {
+            contadorService.registrarLike(anuncioId, 1);
+            eventosAulaService.registrarLike(anuncioId, 1);
+            engagementService.registrarLike(usuarioId, anuncioId, 1);
+            likedSetService.registrar(usuarioId, anuncioId, true);
+        }
+        return insertado;
+    }
+
+    /**
+     * Quita el like; devuelve true si existía
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public boolean quitarLike(Integer usuarioId, Long anuncioId) {
+        boolean eliminado = likeRepository.eliminar(usuarioId, anuncioId) > 0;
+        if (eliminado) {
+            contadorService.registrarLike(anuncioId, -1);
+            eventosAulaService.registrarLike(anuncioId, -1);
+            engagementService.registrarLike(usuarioId, anuncioId, -1);
+            likedSetService.registrar(usuarioId, anuncioId, false);
+        }
+        return eliminado;
+    }
+
+    /**
+     * Alterna el like: intenta borrar y, si no había nada que borrar, inserta.
+     * Devuelve el estado final (true = con like).
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public boolean toggleLike(Integer usuarioId, Long anuncioId) {
+        if (quitarLike(usuarioId, anuncioId)) {
+            return false;
+        }
+        darLike(usuarioId, anuncioId);
+        return true;
+    }
+
+    /**
+     * Ids de todos los anuncios con like del usuario (desde el liked-set cacheado)
+     */
+    public List<Long> getAnunciosConLike(Integer usuarioId) {
+        return likedSetService.todos(usuarioId);
+    }
+
+    /**
+     * Solo los anuncios con like entre los visibles
+     */
+    public List<Long> getAnunciosConLike(Integer usuarioId, Collection<Long> anuncioIds) {
+        return likedSetService.intersectar(usuarioId, anuncioIds);
+    }
+}
@@ -0,0 +1,134 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.repository.LikeRepository;
+import com.usuario.backend.service.cache.SingleFlightCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * 💖 Conjunto de anuncios con like de cada usuario como int[] ordenado (4 bytes por id, sin
+ * boxing), cacheado y actualizado en sitio al dar o quitar like. Las consultas de pertenencia
+ * son búsquedas binarias, así el feed pregunta solo por los anuncios visibles.
+ */
+@Service
+public class LikedSetService {
+
+    private static final int[] VACIO = new int[0];
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Value("${app.likes.cache-ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    @Value("${app.likes.cache-max-usuarios:20000}")
+    private int cacheMaxUsuarios;
+
+    private SingleFlightCache<Integer, int[]> likesPorUsuario;
+
+    @PostConstruct
+    void initCache() {
+        likesPorUsuario = new SingleFlightCache<>("likesPorUsuario", cacheTtlMs, cacheMaxUsuarios);
+    }
+
+    // ========== LECTURA ==========
+
+    public boolean contiene(Integer usuarioId, Long anuncioId) {
+        return anuncioId != null && anuncioId <= Integer.MAX_VALUE
+                && Arrays.binarySearch(get(usuarioId), anuncioId.intValue()) >= 0;
+    }
+
+    /**
+     * Subconjunto con like de los ids recibidos, en el orden recibido y sin duplicados
+     */
+    public List<Long> intersectar(Integer usuarioId, Collection<Long> anuncioIds) {
+        int[] ids = get(usuarioId);
+        List<Long> conLike = new ArrayList<>();
+        if (ids.length == 0) {
+            return conLike;
+        }
+        for (Long anuncioId : new LinkedHashSet<>(anuncioIds)) {
+            if (anuncioId != null && anuncioId <= Integer.MAX_VALUE
+                    && Arrays.binarySearch(ids, anuncioId.intValue()) >= 0) {
+                conLike.add(anuncioId);
+            }
+        }
+        return conLike;
+    }
+
+    public List<Long> todos(Integer usuarioId) {
+        int[] ids = get(usuarioId);
+        List<Long> lista = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            lista.add((long) id);
+        }
+        return lista;
+    }
+
+    public SingleFlightCache.CacheStats getCacheStats() {
+        return likesPorUsuario.getStats();
+    }
+
+    // ========== ESCRITURA (tras commit) ==========
+
+    public void registrar(Integer usuarioId, Long anuncioId, boolean conLike) {
+        int id = Math.toIntExact(anuncioId);
+        ContadorInteraccionesService.alConfirmar(() ->
+                likesPorUsuario.update(usuarioId, ids -> conLike ? insertar(ids, id) : quitar(ids, id)));
+    }
+
+    // ========== AUXILIARES ==========
+
+    private int[] get(Integer usuarioId) {
+        return likesPorUsuario.get(usuarioId, this::cargar);
+    }
+
+    private int[] cargar(Integer usuarioId) {
+        List<Long> ids = likeRepository.findAnuncioIdsByUsuarioId(usuarioId);
+        if (ids.isEmpty()) {
+            return VACIO;
+        }
+        int[] arr = new int[ids.size()];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = Math.toIntExact(ids.get(i));
+        }
+        Arrays.sort(arr);
+        return arr;
+    }
+
+    // Copia con el id insertado en su posición (los arrays cacheados nunca se mutan)
+    private static int[] insertar(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        int ins = -pos - 1;
+        int[] nuevo = new int[ids.length + 1];
+        System.arraycopy(ids, 0, nuevo, 0, ins);
+        nuevo[ins] = id;
+        System.arraycopy(ids, ins, nuevo, ins + 1, ids.length - ins);
+        return nuevo;
+    }
+
+    private static int[] quitar(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return VACIO;
+        }
+        int[] nuevo = new int[ids.length - 1];
+        System.arraycopy(ids, 0, nuevo, 0, pos);
+        System.arraycopy(ids, pos + 1, nuevo, pos, ids.length - pos - 1);
+        return nuevo;
+    }
+}
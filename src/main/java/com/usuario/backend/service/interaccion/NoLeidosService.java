@@ -0,0 +1,230 @@
+package com.usuario.backend.service.interaccion;
+
+import com.usuario.backend.model.entity.NoLeidosAula;
+import com.usuario.backend.repository.AulaEstudianteRepository;
+import com.usuario.backend.repository.NoLeidosAulaRepository;
+import com.usuario.backend.service.cache.SingleFlightCache;
+import com.usuario.backend.service.interaccion.LecturaIngestionService.ParLectura;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * 🔔 Contadores de anuncios sin leer por usuario y aula, mantenidos incrementalmente en
+ * la tabla resumen no_leidos_aula: publicar un anuncio suma 1 a los estudiantes del aula
+ * y leerlo resta 1 al lector. El mapa aula → total de cada usuario se cachea, así que el
+ * badge se lee en O(1) sin anti-join entre anuncios y lecturas.
+ */
+@Service
+public class NoLeidosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoLeidosService.class);
+
+    // La pertenencia activa se comprueba en la misma sentencia que suma, no en una lectura previa
+    private static final String INCREMENTAR_SQL =
+            "INSERT INTO no_leidos_aula (usuario_id, aula_id, total) " +
+            "SELECT ae.estudiante_id, ae.aula_id, 1 FROM aula_estudiantes ae " +
+            "WHERE ae.aula_id = ? AND ae.estado = 'activo' AND (? IS NULL OR ae.estudiante_id <> ?) " +
+            "ON DUPLICATE KEY UPDATE total = total + 1";
+
+    private static final String DECREMENTAR_SQL =
+            "UPDATE no_leidos_aula SET total = GREATEST(0, total - ?) WHERE usuario_id = ? AND aula_id = ?";
+
+    private static final String CONTAR_SQL =
+            "SELECT COUNT(*) FROM anuncios a WHERE a.aula_id = ? AND a.activo = true " +
+            "AND (a.autor_id IS NULL OR a.autor_id <> ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM lecturas l WHERE l.anuncio_id = a.id AND l.usuario_id = ?)";
+
+    private static final String FIJAR_SQL =
+            "INSERT INTO no_leidos_aula (usuario_id, aula_id, total) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE total = VALUES(total)";
+
+    private static final String ELIMINAR_SQL =
+            "DELETE FROM no_leidos_aula WHERE usuario_id = ? AND aula_id = ?";
+
+    // Filas de estudiantes que ya no están activos en el aula (bajas cuyo borrado falló)
+    private static final String PURGAR_SQL =
+            "DELETE FROM no_leidos_aula WHERE NOT EXISTS (SELECT 1 FROM aula_estudiantes ae " +
+            "WHERE ae.aula_id = no_leidos_aula.aula_id AND ae.estudiante_id = no_leidos_aula.usuario_id " +
+            "AND ae.estado = 'activo')";
+
+    private static final String RECONCILIAR_SQL =
+            "UPDATE no_leidos_aula n SET total = (" +
+            "SELECT COUNT(*) FROM anuncios a WHERE a.aula_id = n.aula_id AND a.activo = true " +
+            "AND (a.autor_id IS NULL OR a.autor_id <> n.usuario_id) " +
+            "AND NOT EXISTS (SELECT 1 FROM lecturas l WHERE l.anuncio_id = a.id AND l.usuario_id = n.usuario_id))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NoLeidosAulaRepository noLeidosAulaRepository;
+
+    @Autowired
+    private AulaEstudianteRepository aulaEstudianteRepository;
+
+    @Value("${app.unread.cache-ttl-ms:300000}")
+    private long cacheTtlMs;
+
+    @Value("${app.unread.cache-max-usuarios:10000}")
+    private int cacheMaxUsuarios;
+
+    private SingleFlightCache<Integer, Map<Integer, Integer>> noLeidosPorUsuario;
+
+    @PostConstruct
+    void initCache() {
+        noLeidosPorUsuario = new SingleFlightCache<>("noLeidosPorUsuario", cacheTtlMs, cacheMaxUsuarios);
+    }
+
+    // ========== LECTURA ==========
+
+    /**
+     * Mapa aulaId → anuncios sin leer (solo aulas con pendientes)
+     */
+    public Map<Integer, Integer> getNoLeidos(Integer usuarioId) {
+        return noLeidosPorUsuario.get(usuarioId, this::cargar);
+    }
+
+    public int getNoLeidos(Integer usuarioId, Integer aulaId) {
+        return getNoLeidos(usuarioId).getOrDefault(aulaId, 0);
+    }
+
+    public SingleFlightCache.CacheStats getCacheStats() {
+        return noLeidosPorUsuario.getStats();
+    }
+
+    // ========== ESCRITURA ==========
+
+    /**
+     * Nuevo anuncio en un aula: +1 para cada estudiante activo salvo el autor.
+     * Un fallo aquí no debe tumbar la publicación; la reconciliación nocturna lo corrige.
+     * Por eso se aplica tras el commit del anuncio: dentro de su transacción, un deadlock
+     * revertiría también el anuncio aunque aquí se capturase el error.
+     */
+    public void registrarAnuncio(Integer aulaId, Integer autorId) {
+        ContadorInteraccionesService.alConfirmar(() -> {
+            try {
+                int filas = jdbcTemplate.update(INCREMENTAR_SQL, aulaId, autorId, autorId);
+                if (filas > 0) {
+                    aulaEstudianteRepository.findEstudianteIdsByAulaId(aulaId.longValue())
+                            .forEach(id -> noLeidosPorUsuario.invalidate(id.intValue()));
+                }
+            } catch (Exception e) {
+                logger.error("❌ Error al incrementar no leídos del aula {}: {}", aulaId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lecturas recién persistidas (no repetidas): -1 por anuncio de aula leído.
+     * Corre dentro de la transacción del volcado y no captura errores: si falla, se revierte
+     * también el INSERT de las lecturas y el lote sigue en el buffer para reintentarse.
+     */
+    public void registrarLecturas(Collection<ParLectura> nuevas) {
+        if (nuevas.isEmpty()) {
+            return;
+        }
+        Set<Long> anuncioIds = nuevas.stream().map(ParLectura::anuncioId).collect(Collectors.toSet());
+        Map<Long, Integer[]> aulaYAutor = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, aula_id, autor_id FROM anuncios WHERE aula_id IS NOT NULL AND activo = true AND id IN (" +
+                placeholders(anuncioIds.size()) + ")",
+                rs -> {
+                    aulaYAutor.put(rs.getLong("id"), new Integer[]{
+                            rs.getInt("aula_id"), rs.getObject("autor_id", Integer.class)});
+                },
+                anuncioIds.toArray());
+
+        // Ordenado como el índice único (usuario, aula): todas las transacciones bloquean
+        // las filas en el mismo orden que INCREMENTAR y no se cruzan en un deadlock
+        Map<List<Integer>, Integer> decrementos = new TreeMap<>(
+                Comparator.comparing((List<Integer> k) -> k.get(0)).thenComparing(k -> k.get(1)));
+        for (ParLectura par : nuevas) {
+            Integer[] datos = aulaYAutor.get(par.anuncioId());
+            if (datos == null || par.usuarioId().equals(datos[1])) {
+                continue;
+            }
+            decrementos.merge(List.of(par.usuarioId(), datos[0]), 1, Integer::sum);
+        }
+        if (decrementos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> filas = new ArrayList<>(decrementos.size());
+        Set<Integer> afectados = new HashSet<>();
+        decrementos.forEach((clave, delta) -> {
+            filas.add(new Object[]{delta, clave.get(0), clave.get(1)});
+            afectados.add(clave.get(0));
+        });
+        jdbcTemplate.batchUpdate(DECREMENTAR_SQL, filas);
+        ContadorInteraccionesService.alConfirmar(() -> afectados.forEach(noLeidosPorUsuario::invalidate));
+    }
+
+    /**
+     * Recalcula desde cero un par (usuario, aula); se usa al unirse a un aula,
+     * cuando los anuncios anteriores nunca le sumaron.
+     */
+    public void recalcular(Integer usuarioId, Integer aulaId) {
+        try {
+            Integer total = jdbcTemplate.queryForObject(CONTAR_SQL, Integer.class, aulaId, usuarioId, usuarioId);
+            jdbcTemplate.update(FIJAR_SQL, usuarioId, aulaId, total != null ? total : 0);
+            noLeidosPorUsuario.invalidate(usuarioId);
+        } catch (Exception e) {
+            logger.error("❌ Error al recalcular no leídos de usuario {} en aula {}: {}", usuarioId, aulaId, e.getMessage());
+        }
+    }
+
+    /**
+     * Baja de un estudiante del aula: su contador deja de existir (si vuelve, recalcular lo
+     * crea de nuevo desde cero)
+     */
+    public void eliminar(Integer usuarioId, Integer aulaId) {
+        try {
+            jdbcTemplate.update(ELIMINAR_SQL, usuarioId, aulaId);
+            ContadorInteraccionesService.alConfirmar(() -> noLeidosPorUsuario.invalidate(usuarioId));
+        } catch (Exception e) {
+            logger.error("❌ Error al borrar no leídos de usuario {} en aula {}: {}", usuarioId, aulaId, e.getMessage());
+        }
+    }
+
+    /**
+     * 🔧 Corrige la deriva (anuncios desactivados, fallos puntuales) recalculando toda la tabla
+     */
+    @Scheduled(cron = "${app.unread.reconcile-cron:0 45 4 * * *}")
+    public void reconciliar() {
+        long inicio = System.currentTimeMillis();
+        int purgadas = jdbcTemplate.update(PURGAR_SQL);
+        int filas = jdbcTemplate.update(RECONCILIAR_SQL);
+        noLeidosPorUsuario.invalidateAll();
+        logger.info("🔧 No leídos reconciliados: {} filas ({} bajas purgadas) en {} ms",
+                filas, purgadas, System.currentTimeMillis() - inicio);
+    }
+
+    // ========== AUXILIARES ==========
+
+    private Map<Integer, Integer> cargar(Integer usuarioId) {
+        return noLeidosAulaRepository.findByUsuarioIdAndTotalGreaterThan(usuarioId, 0).stream()
+                .collect(Collectors.toUnmodifiableMap(NoLeidosAula::getAulaId, NoLeidosAula::getTotal));
+    }
+
+    private static String placeholders(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+}
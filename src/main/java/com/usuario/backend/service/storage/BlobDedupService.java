@@ -0,0 +1,224 @@
+package com.usuario.backend.service.storage;
+
+import com.usuario.backend.model.entity.BlobAlmacenado;
+import com.usuario.backend.repository.BlobAlmacenadoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ♻️ Deduplicación por contenido sobre cualquier BlobStore: se hashea el archivo en streaming,
+ * se busca el digest en la tabla blobs y, si ya existe, solo se suma una referencia sin tocar
+ * el almacenamiento. Al liberar se resta y el archivo se borra cuando llega a cero.
+ */
+@Service
+public class BlobDedupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobDedupService.class);
+
+    private static final String ALTA_SQL =
+            "INSERT IGNORE INTO blobs (backend, carpeta, sha256, clave, url, tamano, content_type, variantes, referencias, fecha_creacion) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1, NOW())";
+
+    private static final String VARIANTES_SQL = "UPDATE blobs SET variantes = ? WHERE id = ?";
+
+    private static final String SUMAR_SQL = "UPDATE blobs SET referencias = referencias + 1 WHERE id = ?";
+
+    private static final String RESTAR_SQL = "UPDATE blobs SET referencias = referencias - 1 WHERE id = ? AND referencias > 0";
+
+    private static final String BORRAR_SQL = "DELETE FROM blobs WHERE id = ? AND referencias = 0";
+
+    // Altas que chocan con un registro que otra instancia libera a la vez
+    private static final int MAX_INTENTOS_ALTA = 3;
+
+    // Serializa guardar/liberar del mismo contenido dentro de esta instancia
+    private static final int NUM_LOCKS = 64;
+
+    @Autowired
+    private BlobAlmacenadoRepository blobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantLock[] locks = new ReentrantLock[NUM_LOCKS];
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder bytesEvitados = new LongAdder();
+    private final LongAdder borrados = new LongAdder();
+
+    public BlobDedupService() {
+        for (int i = 0; i < NUM_LOCKS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public StoredBlob guardar(BlobStore store, Path origen, String carpeta, String contentType) throws IOException {
+        return guardar(store, origen, carpeta, contentType, Map.of());
+    }
+
+    /**
+     * Igual que guardar, subiendo además las variantes (nombre → archivo) con putVariant. Si el
+     * contenido ya existía solo se suben las variantes cuando el blob registrado no tenía ninguna.
+     */
+    public StoredBlob guardar(BlobStore store, Path origen, String carpeta, String contentType,
+                              Map<String, Path> variantes) throws IOException {
+        String hash = ContentHash.sha256(origen);
+        return guardar(store, hash, carpeta, Files.size(origen), () -> store.put(origen, carpeta, contentType),
+                clave -> subirVariantes(store, clave, variantes));
+    }
+
+    public StoredBlob guardar(BlobStore store, MultipartFile archivo, String carpeta) throws IOException {
+        String hash;
+        try (InputStream in = archivo.getInputStream()) {
+            hash = ContentHash.sha256(in);
+        }
+        return guardar(store, hash, carpeta, archivo.getSize(), () -> store.put(archivo, carpeta), null);
+    }
+
+    /**
+     * Variantes registradas para una clave (vacío si no tiene o no está en blobs)
+     */
+    public List<String> variantes(BlobStore store, String clave) {
+        return blobRepository.findByBackendAndClave(store.backend(), clave)
+                .map(BlobAlmacenado::getVariantes)
+                .filter(v -> !v.isBlank())
+                .map(v -> List.of(v.split(",")))
+                .orElse(List.of());
+    }
+
+    /**
+     * Resta una referencia; devuelve true si el archivo se borró del almacenamiento. Las claves
+     * sin fila en blobs (subidas anteriores a la deduplicación) se borran directamente.
+     */
+    public boolean liberar(BlobStore store, String clave) throws IOException {
+        Optional<BlobAlmacenado> registrado = blobRepository.findByBackendAndClave(store.backend(), clave);
+        if (registrado.isEmpty()) {
+            return store.delete(clave);
+        }
+        BlobAlmacenado blob = registrado.get();
+        ReentrantLock lock = lockDe(blob.getSha256());
+        lock.lock();
+        try {
+            jdbcTemplate.update(RESTAR_SQL, blob.getId());
+            if (jdbcTemplate.update(BORRAR_SQL, blob.getId()) == 0) {
+                return false;
+            }
+            store.delete(clave);
+            borrados.increment();
+            logger.info("🗑️ Blob sin referencias borrado: {}", clave);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "aciertos", aciertos.sum(),
+            "fallos", fallos.sum(),
+            "bytesEvitados", bytesEvitados.sum(),
+            "borrados", borrados.sum()
+        );
+    }
+
+    // ========== INTERNOS ==========
+
+    private StoredBlob guardar(BlobStore store, String hash, String carpeta, long tamano, Subida subida,
+                               AltaVariantes altaVariantes) throws IOException {
+        ReentrantLock lock = lockDe(hash);
+        lock.lock();
+        try {
+            // Los locks solo sirven dentro de esta instancia: otra puede haber borrado la fila entre
+            // la búsqueda y el UPDATE, así que solo cuenta como acierto si el UPDATE tocó la fila
+            Optional<BlobAlmacenado> existente = blobRepository.findByBackendAndCarpetaAndSha256(store.backend(), carpeta, hash);
+            if (existente.isPresent() && jdbcTemplate.update(SUMAR_SQL, existente.get().getId()) == 1) {
+                aciertos.increment();
+                bytesEvitados.add(tamano);
+                logger.debug("♻️ Contenido repetido en {}, se reutiliza {}", carpeta, existente.get().getClave());
+                if (altaVariantes != null && existente.get().getVariantes() == null) {
+                    String subidas = altaVariantes.subir(existente.get().getClave());
+                    if (subidas != null) {
+                        jdbcTemplate.update(VARIANTES_SQL, subidas, existente.get().getId());
+                    }
+                }
+                return aStoredBlob(existente.get());
+            }
+
+            StoredBlob nuevo = subida.ejecutar();
+            fallos.increment();
+            String subidas = altaVariantes != null ? altaVariantes.subir(nuevo.key()) : null;
+            for (int intento = 0; intento < MAX_INTENTOS_ALTA; intento++) {
+                if (jdbcTemplate.update(ALTA_SQL, store.backend(), carpeta, hash,
+                        nuevo.key(), nuevo.url(), nuevo.size(), nuevo.contentType(), subidas) > 0) {
+                    return nuevo;
+                }
+                // Otra instancia registró el mismo contenido a la vez: se usa el suyo si sigue vivo
+                Optional<BlobAlmacenado> ganador = blobRepository.findByBackendAndCarpetaAndSha256(store.backend(), carpeta, hash);
+                if (ganador.isPresent() && jdbcTemplate.update(SUMAR_SQL, ganador.get().getId()) == 1) {
+                    if (!ganador.get().getClave().equals(nuevo.key())) {
+                        store.delete(nuevo.key());
+                    }
+                    return aStoredBlob(ganador.get());
+                }
+                // El ganador se liberó entretanto: se vuelve a intentar el alta con la copia propia
+            }
+            store.delete(nuevo.key());
+            throw new IllegalStateException("No se pudo registrar el blob " + hash + " tras " + MAX_INTENTOS_ALTA + " intentos");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sube cada variante (miniaturas JPEG) y devuelve los nombres subidos en CSV (null si no había ninguna). Una
+     * variante que falla no invalida el blob principal: simplemente no se anuncia.
+     */
+    private String subirVariantes(BlobStore store, String clave, Map<String, Path> variantes) {
+        if (variantes == null || variantes.isEmpty()) {
+            return null;
+        }
+        List<String> subidas = new ArrayList<>();
+        for (Map.Entry<String, Path> variante : variantes.entrySet()) {
+            try {
+                store.putVariant(clave, variante.getKey(), variante.getValue(), "image/jpeg");
+                subidas.add(variante.getKey());
+            } catch (Exception e) {
+                logger.warn("⚠️ No se pudo guardar la variante {} de {}: {}", variante.getKey(), clave, e.getMessage());
+            }
+        }
+        return subidas.isEmpty() ? null : String.join(",", subidas);
+    }
+
+    private ReentrantLock lockDe(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), NUM_LOCKS)];
+    }
+
+    private static StoredBlob aStoredBlob(BlobAlmacenado blob) {
+        return new StoredBlob(blob.getClave(), blob.getUrl(), blob.getSha256(), blob.getTamano(), blob.getContentType());
+    }
+
+    @FunctionalInterface
+    private interface Subida {
+        StoredBlob ejecutar() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface AltaVariantes {
+        String subir(String clave);
+    }
+}
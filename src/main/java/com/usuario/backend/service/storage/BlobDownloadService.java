@@ -0,0 +1,128 @@
+package com.usuario.backend.service.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * ⬇️ Sirve archivos de disco con soporte de Range (un rango, descargas reanudables), If-Range,
+ * If-None-Match y ETag fuerte. El cuerpo nunca pasa por el heap: con Tomcat NIO se usa sendfile
+ * y, si no está disponible, FileChannel.transferTo hacia la salida.
+ */
+@Service
+public class BlobDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public void servir(Path archivo, String sha256, String nombre, String contentType,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long largo = Files.size(archivo);
+        String etag = "\"" + sha256 + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Contenido con control de acceso: cacheable solo por el navegador, revalidando con el ETag
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        if (coincideEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long inicio = 0;
+        long fin = largo - 1;
+        boolean parcial = false;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // Si If-Range no coincide el archivo cambió: se responde completo
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of(); // Range mal formado: se ignora
+            }
+            // Multirango (multipart/byteranges) no se soporta: se sirve el archivo completo
+            if (rangos.size() == 1) {
+                HttpRange rango = rangos.get(0);
+                inicio = rango.getRangeStart(largo);
+                fin = rango.getRangeEnd(largo);
+                if (inicio >= largo || inicio > fin) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + largo);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                parcial = true;
+            }
+        }
+
+        long total = largo == 0 ? 0 : fin - inicio + 1;
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(nombre != null ? nombre : archivo.getFileName().toString(), StandardCharsets.UTF_8)
+                .build().toString());
+        response.setContentLengthLong(total);
+        if (parcial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + largo);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || total == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el archivo con sendfile al terminar la petición (fin exclusivo)
+            request.setAttribute(SENDFILE_FILENAME, archivo.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, inicio);
+            request.setAttribute(SENDFILE_END, fin + 1);
+            return;
+        }
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long posicion = inicio;
+            long restante = total;
+            while (restante > 0) {
+                long enviados = canal.transferTo(posicion, restante, salida);
+                if (enviados <= 0) {
+                    break;
+                }
+                posicion += enviados;
+                restante -= enviados;
+            }
+        }
+    }
+
+    private static boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package com.usuario.backend.service.storage;
+
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 🗄️ Almacenamiento de archivos. El BlobStore principal (imágenes de perfil) se elige con
+ * app.storage.backend: "cloudinary" (por defecto) o "local"; los adjuntos de anuncios van
+ * siempre a disco local (ver StorageConfig).
+ */
+public interface BlobStore {
+
+    /**
+     * Guarda el archivo bajo la carpeta lógica indicada y devuelve su referencia
+     */
+    StoredBlob put(Path origen, String carpeta, String contentType) throws IOException;
+
+    /**
+     * Guarda un multipart; por defecto lo pasa por un temporal en disco
+     */
+    default StoredBlob put(MultipartFile archivo, String carpeta) throws IOException {
+        Path temporal = Files.createTempFile("blob-", ".upload");
+        try {
+            archivo.transferTo(temporal);
+            return put(temporal, carpeta, archivo.getContentType());
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    /**
+     * Guarda una variante (p. ej. una miniatura) bajo una clave derivada de la principal, de
+     * modo que su URL se puede calcular a partir de la URL principal con variantUrl
+     */
+    StoredBlob putVariant(String key, String variante, Path origen, String contentType) throws IOException;
+
+    /**
+     * URL de una variante a partir de la URL principal (vacío si la URL no es de este backend)
+     */
+    Optional<String> variantUrl(String url, String variante);
+
+    /**
+     * Borra el archivo y sus variantes; devuelve false si no existía
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Archivo servible desde este proceso (vacío si el backend es remoto o no existe)
+     */
+    Optional<Resource> resource(String key);
+
+    /**
+     * Recupera la clave a partir de una URL pública generada por este backend
+     */
+    Optional<String> keyFromUrl(String url);
+
+    String backend();
+
+    /**
+     * false si el backend está rechazando llamadas (circuito abierto), para fallar antes de
+     * preparar una subida
+     */
+    default boolean disponible() {
+        return true;
+    }
+
+    default Map<String, Object> getStats() {
+        return Map.of("backend", backend());
+    }
+}
@@ -0,0 +1,193 @@
+package com.usuario.backend.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ⚡ Circuit breaker por tasa de fallos sobre las últimas N llamadas.
+ *
+ * CERRADO: todo pasa; si en la ventana hay al menos minimoLlamadas y el porcentaje de fallos
+ * llega al umbral, se ABRE. ABIERTO: se rechaza sin llamar hasta que pasa esperaAbiertoMs y
+ * entonces queda SEMIABIERTO. SEMIABIERTO: deja pasar llamadasPrueba llamadas; si todas van
+ * bien se CIERRA y con el primer fallo vuelve a ABRIRSE.
+ *
+ * Cada transición se cuenta y se registra en el log (ver getStats).
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final String nombre;
+    private final int minimoLlamadas;
+    private final int umbralFallosPct;
+    private final long esperaAbiertoMs;
+    private final int llamadasPrueba;
+
+    // Ventana circular de resultados (true = fallo)
+    private final boolean[] ventana;
+    private int posicion;
+    private int registradas;
+    private int fallosEnVentana;
+
+    private Estado estado = Estado.CERRADO;
+    private long abiertoDesde;
+    private int pruebasEnCurso;
+    private int pruebasCorrectas;
+
+    private final Map<Estado, Map<Estado, LongAdder>> transiciones = new EnumMap<>(Estado.class);
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder exitos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private volatile long ultimaTransicion;
+
+    public CircuitBreaker(String nombre, int tamanoVentana, int minimoLlamadas, int umbralFallosPct,
+                          long esperaAbiertoMs, int llamadasPrueba) {
+        this.nombre = nombre;
+        this.ventana = new boolean[tamanoVentana];
+        this.minimoLlamadas = Math.min(minimoLlamadas, tamanoVentana);
+        this.umbralFallosPct = umbralFallosPct;
+        this.esperaAbiertoMs = esperaAbiertoMs;
+        this.llamadasPrueba = llamadasPrueba;
+        for (Estado desde : Estado.values()) {
+            Map<Estado, LongAdder> hacia = new EnumMap<>(Estado.class);
+            for (Estado destino : Estado.values()) {
+                hacia.put(destino, new LongAdder());
+            }
+            transiciones.put(desde, hacia);
+        }
+    }
+
+    /**
+     * ¿Se puede llamar ahora? Si devuelve true el llamador debe informar después con
+     * registrarExito, registrarFallo o registrarIgnorada.
+     */
+    public synchronized boolean permitir() {
+        if (estado == Estado.ABIERTO) {
+            if (System.currentTimeMillis() - abiertoDesde < esperaAbiertoMs) {
+                rechazadas.increment();
+                return false;
+            }
+            cambiarA(Estado.SEMIABIERTO);
+        }
+        if (estado == Estado.SEMIABIERTO) {
+            if (pruebasEnCurso >= llamadasPrueba) {
+                rechazadas.increment();
+                return false;
+            }
+            pruebasEnCurso++;
+        }
+        return true;
+    }
+
+    /**
+     * Sin efecto sobre el estado: indica si una llamada tendría opción de pasar
+     */
+    public synchronized boolean disponible() {
+        return estado != Estado.ABIERTO || System.currentTimeMillis() - abiertoDesde >= esperaAbiertoMs;
+    }
+
+    public synchronized void registrarExito() {
+        exitos.increment();
+        if (estado == Estado.SEMIABIERTO) {
+            pruebasEnCurso = Math.max(0, pruebasEnCurso - 1);
+            if (++pruebasCorrectas >= llamadasPrueba) {
+                cambiarA(Estado.CERRADO);
+            }
+            return;
+        }
+        registrar(false);
+    }
+
+    public synchronized void registrarFallo() {
+        fallos.increment();
+        if (estado == Estado.SEMIABIERTO) {
+            cambiarA(Estado.ABIERTO);
+            return;
+        }
+        registrar(true);
+        if (estado == Estado.CERRADO && registradas >= minimoLlamadas
+                && fallosEnVentana * 100 >= umbralFallosPct * registradas) {
+            cambiarA(Estado.ABIERTO);
+        }
+    }
+
+    /**
+     * La llamada no llegó a ejecutarse (p. ej. bulkhead lleno): libera el hueco de prueba
+     */
+    public synchronized void registrarIgnorada() {
+        if (estado == Estado.SEMIABIERTO && pruebasEnCurso > 0) {
+            pruebasEnCurso--;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Long> conteo = new LinkedHashMap<>();
+        transiciones.forEach((desde, hacia) -> hacia.forEach((destino, n) -> {
+            if (desde != destino) {
+                conteo.put(desde + "->" + destino, n.sum());
+            }
+        }));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nombre", nombre);
+        stats.put("estado", estado);
+        stats.put("tasaFallosPct", registradas == 0 ? 0 : fallosEnVentana * 100 / registradas);
+        stats.put("llamadasEnVentana", registradas);
+        stats.put("exitos", exitos.sum());
+        stats.put("fallos", fallos.sum());
+        stats.put("rechazadas", rechazadas.sum());
+        stats.put("transiciones", conteo);
+        stats.put("ultimaTransicion", ultimaTransicion);
+        return stats;
+    }
+
+    // ========== INTERNOS ==========
+
+    private void registrar(boolean fallo) {
+        if (registradas == ventana.length) {
+            if (ventana[posicion]) {
+                fallosEnVentana--;
+            }
+        } else {
+            registradas++;
+        }
+        ventana[posicion] = fallo;
+        if (fallo) {
+            fallosEnVentana++;
+        }
+        posicion = (posicion + 1) % ventana.length;
+    }
+
+    private void cambiarA(Estado nuevo) {
+        Estado anterior = estado;
+        estado = nuevo;
+        ultimaTransicion = System.currentTimeMillis();
+        transiciones.get(anterior).get(nuevo).increment();
+
+        if (nuevo == Estado.ABIERTO) {
+            abiertoDesde = ultimaTransicion;
+            logger.warn("⚡ Circuito {} ABIERTO ({} -> {}): {}% de fallos en las últimas {} llamadas",
+                    nombre, anterior, nuevo, registradas == 0 ? 100 : fallosEnVentana * 100 / registradas, registradas);
+        } else {
+            logger.info("⚡ Circuito {}: {} -> {}", nombre, anterior, nuevo);
+        }
+        pruebasEnCurso = 0;
+        pruebasCorrectas = 0;
+        if (nuevo == Estado.CERRADO) {
+            // Tras recuperarse se empieza con la ventana limpia
+            posicion = 0;
+            registradas = 0;
+            fallosEnVentana = 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.usuario.backend.service.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ☁️ BlobStore sobre Cloudinary. La clave es resource_type/public_id para poder borrar
+ * también adjuntos que no son imágenes (resource_type raw).
+ */
+public class CloudinaryBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CloudinaryBlobStore.class);
+
+    // Transformación aplicada al subir, por carpeta (las fotos de perfil se recortan a la cara)
+    private static final Map<String, String> TRANSFORMACIONES = Map.of(
+        "tecbook_profiles", "c_fill,w_300,h_300,g_face"
+    );
+
+    private final Cloudinary cloudinary;
+
+    // Timeout de socket por petición en ms (opción "timeout" del cliente HTTP); 0 = el del cliente
+    private final int timeoutMs;
+
+    public CloudinaryBlobStore(Cloudinary cloudinary) {
+        this(cloudinary, 0);
+    }
+
+    public CloudinaryBlobStore(Cloudinary cloudinary, int timeoutMs) {
+        this.cloudinary = cloudinary;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public StoredBlob put(Path origen, String carpeta, String contentType) throws IOException {
+        String hash = ContentHash.sha256(origen);
+
+        Map<String, Object> options = ObjectUtils.asMap(
+            "public_id", carpeta + "/" + UUID.randomUUID(),
+            "resource_type", "auto",
+            "overwrite", false
+        );
+        String transformacion = TRANSFORMACIONES.get(carpeta);
+        if (transformacion != null) {
+            options.put("transformation", transformacion);
+        }
+
+        Map<?, ?> resultado = cloudinary.uploader().upload(origen.toFile(), conTimeout(options));
+        String key = resultado.get("resource_type") + "/" + resultado.get("public_id");
+        long bytes = resultado.get("bytes") instanceof Number n ? n.longValue() : origen.toFile().length();
+        return new StoredBlob(key, (String) resultado.get("secure_url"), hash, bytes, contentType);
+    }
+
+    @Override
+    public StoredBlob putVariant(String key, String variante, Path origen, String contentType) throws IOException {
+        String publicId = key.substring(key.indexOf('/') + 1) + "_" + variante;
+        Map<?, ?> resultado = cloudinary.uploader().upload(origen.toFile(), conTimeout(ObjectUtils.asMap(
+            "public_id", publicId,
+            "resource_type", "image",
+            "overwrite", true
+        )));
+        long bytes = resultado.get("bytes") instanceof Number n ? n.longValue() : origen.toFile().length();
+        return new StoredBlob("image/" + publicId, (String) resultado.get("secure_url"), null, bytes, contentType);
+    }
+
+    /**
+     * Misma URL sin versión y con _variante antes de la extensión
+     */
+    @Override
+    public Optional<String> variantUrl(String url, String variante) {
+        if (keyFromUrl(url).isEmpty()) {
+            return Optional.empty();
+        }
+        String sinVersion = url.replaceFirst("/upload/v\\d+/", "/upload/");
+        int punto = sinVersion.lastIndexOf('.');
+        if (punto <= sinVersion.lastIndexOf('/')) {
+            return Optional.of(sinVersion + "_" + variante);
+        }
+        return Optional.of(sinVersion.substring(0, punto) + "_" + variante + sinVersion.substring(punto));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        int barra = key.indexOf('/');
+        if (barra < 0) {
+            throw new IllegalArgumentException("Clave de blob no válida: " + key);
+        }
+        String tipo = key.substring(0, barra);
+        String publicId = key.substring(barra + 1);
+        Map<?, ?> resultado = cloudinary.uploader().destroy(publicId, conTimeout(ObjectUtils.asMap("resource_type", tipo)));
+        if ("image".equals(tipo)) {
+            try {
+                // Variantes (miniaturas) guardadas como publicId_variante
+                cloudinary.api().deleteResourcesByPrefix(publicId + "_", conTimeout(ObjectUtils.asMap()));
+            } catch (Exception e) {
+                logger.warn("⚠️ No se pudieron borrar las variantes de {}: {}", publicId, e.getMessage());
+            }
+        }
+        return "ok".equals(resultado.get("result"));
+    }
+
+    @Override
+    public Optional<Resource> resource(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * https://res.cloudinary.com/{cloud}/{resource_type}/upload/v123/{public_id}.{ext}
+     * (en raw la extensión forma parte del public_id)
+     */
+    @Override
+    public Optional<String> keyFromUrl(String url) {
+        if (url == null || !url.contains("res.cloudinary.com/")) {
+            return Optional.empty();
+        }
+        int upload = url.indexOf("/upload/");
+        if (upload < 0) {
+            return Optional.empty();
+        }
+        String tipo = url.substring(url.lastIndexOf('/', upload - 1) + 1, upload);
+        String resto = url.substring(upload + "/upload/".length());
+        if (resto.matches("v\\d+/.*")) {
+            resto = resto.substring(resto.indexOf('/') + 1);
+        }
+        if (!"raw".equals(tipo)) {
+            int punto = resto.lastIndexOf('.');
+            if (punto > resto.lastIndexOf('/')) {
+                resto = resto.substring(0, punto);
+            }
+        }
+        return resto.isEmpty() ? Optional.empty() : Optional.of(tipo + "/" + resto);
+    }
+
+    @Override
+    public String backend() {
+        return "cloudinary";
+    }
+
+    private Map<String, Object> conTimeout(Map<String, Object> options) {
+        if (timeoutMs > 0) {
+            options.put("timeout", timeoutMs);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,52 @@
+package com.usuario.backend.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 en streaming (buffer fijo, nunca el archivo entero en memoria)
+ */
+public final class ContentHash {
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private ContentHash() {}
+
+    public static String sha256(Path archivo) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+            while (canal.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        int leidos;
+        while ((leidos = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, leidos);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.usuario.backend.service.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 💾 BlobStore en disco local, direccionado por contenido: la clave es carpeta/sha256.ext y el
+ * archivo vive en {dir}/carpeta/ab/sha256.ext (las variantes en sha256_variante.ext). Se escribe a un temporal (hasheando mientras se
+ * copia por canales NIO) y se publica con un rename atómico, así nunca se lee un archivo a medias.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalBlobStore.class);
+
+    private static final Pattern CLAVE_VALIDA = Pattern.compile("[a-z0-9_]+/[0-9a-f]{64}(_[a-z0-9]{1,10})?\\.[a-z0-9]{1,5}");
+
+    private static final Map<String, String> EXTENSIONES = Map.of(
+        "image/jpeg", "jpg",
+        "image/png", "png",
+        "image/gif", "gif",
+        "image/webp", "webp",
+        "application/pdf", "pdf"
+    );
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final Path raiz;
+    private final Path temporales;
+    private final String publicUrlBase;
+    private final Set<String> carpetasPublicas;
+
+    /**
+     * Solo las carpetas en carpetasPublicas reciben URL pública; el resto se sirve con control de acceso
+     */
+    public LocalBlobStore(Path dir, String publicUrlBase, Set<String> carpetasPublicas) throws IOException {
+        this.raiz = dir.toAbsolutePath().normalize();
+        this.publicUrlBase = publicUrlBase;
+        this.carpetasPublicas = carpetasPublicas;
+        // Los temporales viven bajo la misma raíz para que el rename sea atómico (mismo filesystem)
+        this.temporales = Files.createDirectories(raiz.resolve(".tmp"));
+        logger.info("💾 BlobStore local en {}", raiz);
+    }
+
+    @Override
+    public StoredBlob put(Path origen, String carpeta, String contentType) throws IOException {
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            return escribir(canal, carpeta, contentType);
+        }
+    }
+
+    @Override
+    public StoredBlob put(MultipartFile archivo, String carpeta) throws IOException {
+        // Directo desde el stream del multipart: una sola copia a disco
+        try (InputStream in = archivo.getInputStream();
+             ReadableByteChannel canal = Channels.newChannel(in)) {
+            return escribir(canal, carpeta, archivo.getContentType());
+        }
+    }
+
+    @Override
+    public StoredBlob putVariant(String key, String variante, Path origen, String contentType) throws IOException {
+        String claveVariante = claveVariante(key, variante);
+        Path destino = resolver(claveVariante);
+        Files.createDirectories(destino.getParent());
+        Path temporal = Files.createTempFile(temporales, "variante-", ".part");
+        try {
+            try (FileChannel in = FileChannel.open(origen, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                long total = in.size();
+                long copiados = 0;
+                while (copiados < total) {
+                    copiados += in.transferTo(copiados, total - copiados, out);
+                }
+                out.force(true);
+            }
+            mover(temporal, destino);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        int barra = key.indexOf('/');
+        return new StoredBlob(claveVariante, urlPublica(key.substring(0, barra), claveVariante),
+                null, Files.size(destino), contentType);
+    }
+
+    @Override
+    public Optional<String> variantUrl(String url, String variante) {
+        return keyFromUrl(url).map(key -> publicUrlBase + "/" + claveVariante(key, variante));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        Path archivo = resolver(key);
+        String nombre = archivo.getFileName().toString();
+        int punto = nombre.lastIndexOf('.');
+        if (Files.isDirectory(archivo.getParent())) {
+            try (DirectoryStream<Path> variantes = Files.newDirectoryStream(archivo.getParent(),
+                    nombre.substring(0, punto) + "_*" + nombre.substring(punto))) {
+                for (Path variante : variantes) {
+                    Files.deleteIfExists(variante);
+                }
+            }
+        }
+        return Files.deleteIfExists(archivo);
+    }
+
+    @Override
+    public Optional<Resource> resource(String key) {
+        return path(key).map(FileSystemResource::new);
+    }
+
+    /**
+     * Ruta en disco del blob, para servirlo sin pasar por el heap
+     */
+    public Optional<Path> path(String key) {
+        if (key == null || !CLAVE_VALIDA.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path archivo = resolver(key);
+        return Files.isRegularFile(archivo) ? Optional.of(archivo) : Optional.empty();
+    }
+
+    @Override
+    public Optional<String> keyFromUrl(String url) {
+        String prefijo = publicUrlBase + "/";
+        if (url == null || !url.startsWith(prefijo)) {
+            return Optional.empty();
+        }
+        String key = url.substring(prefijo.length());
+        return CLAVE_VALIDA.matcher(key).matches() ? Optional.of(key) : Optional.empty();
+    }
+
+    @Override
+    public String backend() {
+        return "local";
+    }
+
+    // ========== ESCRITURA ==========
+
+    private StoredBlob escribir(ReadableByteChannel origen, String carpeta, String contentType) throws IOException {
+        MessageDigest sha256 = ContentHash.nuevoDigest();
+        Path temporal = Files.createTempFile(temporales, "blob-", ".part");
+        long total = 0;
+        try {
+            try (FileChannel destino = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+                while (origen.read(buffer) != -1) {
+                    buffer.flip();
+                    sha256.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        total += destino.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                destino.force(true);
+            }
+
+            String hash = HexFormat.of().formatHex(sha256.digest());
+            String key = carpeta + "/" + hash + "." + extension(contentType);
+            Path final_ = resolver(key);
+            if (Files.exists(final_)) {
+                // Mismo contenido ya publicado: no hace falta reescribirlo
+                logger.debug("Blob {} ya existía, se reutiliza", key);
+            } else {
+                Files.createDirectories(final_.getParent());
+                mover(temporal, final_);
+            }
+            return new StoredBlob(key, urlPublica(carpeta, key), hash, total, contentType);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    private static void mover(Path temporal, Path destino) throws IOException {
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String claveVariante(String key, String variante) {
+        int punto = key.lastIndexOf('.');
+        return key.substring(0, punto) + "_" + variante + key.substring(punto);
+    }
+
+    private Path resolver(String key) {
+        if (!CLAVE_VALIDA.matcher(key).matches()) {
+            throw new IllegalArgumentException("Clave de blob no válida: " + key);
+        }
+        int barra = key.indexOf('/');
+        String carpeta = key.substring(0, barra);
+        String archivo = key.substring(barra + 1);
+        return raiz.resolve(carpeta).resolve(archivo.substring(0, 2)).resolve(archivo);
+    }
+
+    private String urlPublica(String carpeta, String key) {
+        return carpetasPublicas.contains(carpeta) ? publicUrlBase + "/" + key : null;
+    }
+
+    private static String extension(String contentType) {
+        return contentType != null ? EXTENSIONES.getOrDefault(contentType.toLowerCase(), "bin") : "bin";
+    }
+}
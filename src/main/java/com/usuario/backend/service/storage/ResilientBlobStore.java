@@ -0,0 +1,242 @@
+package com.usuario.backend.service.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 🛡️ Envuelve un BlobStore remoto: las llamadas de red (put, putVariant, delete) se ejecutan en
+ * un pool propio y acotado (bulkhead), con timeout por llamada y detrás de un CircuitBreaker.
+ * Si el servicio se degrada, los hilos de Tomcat esperan como mucho el timeout y, con el
+ * circuito abierto, fallan al instante con StorageUnavailableException. El resto de métodos
+ * no salen a la red y se delegan tal cual.
+ * Una subida que vence su timeout no se interrumpe: si termina después, su clave se entrega
+ * al destino de abandonadas (la cola de huérfanos) en vez de quedar sin referencia.
+ */
+public class ResilientBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientBlobStore.class);
+
+    private final BlobStore delegado;
+    private final CircuitBreaker circuito;
+    private final ThreadPoolExecutor bulkhead;
+    private final long timeoutSubidaMs;
+    private final long timeoutBorradoMs;
+
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder bulkheadLleno = new LongAdder();
+    private final LongAdder abandonadas = new LongAdder();
+
+    private volatile Consumer<String> destinoAbandonadas = clave ->
+            logger.warn("⚠️ Subida terminada tras su timeout sin destino para huérfanos: {}", clave);
+
+    public ResilientBlobStore(BlobStore delegado, CircuitBreaker circuito, int hilos, int cola,
+                              long timeoutSubidaMs, long timeoutBorradoMs) {
+        this.delegado = delegado;
+        this.circuito = circuito;
+        this.timeoutSubidaMs = timeoutSubidaMs;
+        this.timeoutBorradoMs = timeoutBorradoMs;
+        AtomicInteger n = new AtomicInteger();
+        this.bulkhead = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), r -> {
+                    Thread t = new Thread(r, "storage-" + delegado.backend() + "-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Recibe las claves de subidas que terminan después de que el llamador recibiera el timeout
+     */
+    public void alAbandonarSubida(Consumer<String> destino) {
+        this.destinoAbandonadas = destino;
+    }
+
+    @Override
+    public StoredBlob put(Path origen, String carpeta, String contentType) throws IOException {
+        return subir("put", () -> delegado.put(origen, carpeta, contentType));
+    }
+
+    @Override
+    public StoredBlob put(MultipartFile archivo, String carpeta) throws IOException {
+        return subir("put", () -> delegado.put(archivo, carpeta));
+    }
+
+    @Override
+    public StoredBlob putVariant(String key, String variante, Path origen, String contentType) throws IOException {
+        return subir("putVariant", () -> delegado.putVariant(key, variante, origen, contentType));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return ejecutar("delete", () -> delegado.delete(key), timeoutBorradoMs, null);
+    }
+
+    @Override
+    public Optional<String> variantUrl(String url, String variante) {
+        return delegado.variantUrl(url, variante);
+    }
+
+    @Override
+    public Optional<Resource> resource(String key) {
+        return delegado.resource(key);
+    }
+
+    @Override
+    public Optional<String> keyFromUrl(String url) {
+        return delegado.keyFromUrl(url);
+    }
+
+    @Override
+    public String backend() {
+        return delegado.backend();
+    }
+
+    @Override
+    public boolean disponible() {
+        return circuito.disponible();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backend", backend());
+        stats.put("circuito", circuito.getStats());
+        stats.put("activos", bulkhead.getActiveCount());
+        stats.put("enCola", bulkhead.getQueue().size());
+        stats.put("bulkheadLleno", bulkheadLleno.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("subidasAbandonadas", abandonadas.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void apagar() {
+        bulkhead.shutdownNow();
+    }
+
+    // ========== INTERNOS ==========
+
+    /**
+     * La subida y el llamador compiten por marcar "resuelta": si gana la subida, el llamador
+     * recibe su resultado aunque ya hubiera vencido el timeout; si gana el llamador, la subida
+     * se da por abandonada y, cuando termine, su clave va a destinoAbandonadas.
+     */
+    private StoredBlob subir(String operacion, Callable<StoredBlob> llamada) throws IOException {
+        AtomicBoolean resuelta = new AtomicBoolean();
+        return ejecutar(operacion, () -> {
+            StoredBlob blob = llamada.call();
+            if (!resuelta.compareAndSet(false, true)) {
+                abandonadas.increment();
+                logger.warn("⚠️ {} en {} terminó tras el timeout, se encola para borrado: {}",
+                        operacion, backend(), blob.key());
+                destinoAbandonadas.accept(blob.key());
+            }
+            return blob;
+        }, timeoutSubidaMs, resuelta);
+    }
+
+    /**
+     * Con resuelta != null (subidas) la llamada no se interrumpe al vencer el timeout: una
+     * petición cortada a medias puede haber creado el archivo sin devolver su clave.
+     */
+    private <T> T ejecutar(String operacion, Callable<T> llamada, long timeoutMs, AtomicBoolean resuelta)
+            throws IOException {
+        if (!circuito.permitir()) {
+            throw new StorageUnavailableException("El almacenamiento de archivos no está disponible, intenta de nuevo en unos segundos");
+        }
+
+        Future<T> futuro;
+        try {
+            futuro = bulkhead.submit(llamada);
+        } catch (RejectedExecutionException e) {
+            circuito.registrarIgnorada();
+            bulkheadLleno.increment();
+            throw new StorageUnavailableException("Demasiadas operaciones de almacenamiento en curso, intenta de nuevo en unos segundos");
+        }
+
+        try {
+            T resultado = futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuito.registrarExito();
+            return resultado;
+        } catch (TimeoutException e) {
+            if (resuelta != null && !resuelta.compareAndSet(false, true)) {
+                // Terminó justo al vencer: el resultado ya es del llamador
+                circuito.registrarExito();
+                return resultadoEntregado(futuro);
+            }
+            futuro.cancel(resuelta == null);
+            timeouts.increment();
+            circuito.registrarFallo();
+            logger.warn("⏱️ {} en {} superó {} ms", operacion, backend(), timeoutMs);
+            throw new IOException("El almacenamiento no respondió en " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            if (resuelta != null && !resuelta.compareAndSet(false, true)) {
+                circuito.registrarExito();
+                Thread.currentThread().interrupt();
+                return resultadoEntregado(futuro);
+            }
+            futuro.cancel(resuelta == null);
+            circuito.registrarIgnorada();
+            Thread.currentThread().interrupt();
+            throw new IOException("Operación de almacenamiento interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IllegalArgumentException iae) {
+                // Error del llamador (clave no válida...), no del servicio
+                circuito.registrarIgnorada();
+                throw iae;
+            }
+            circuito.registrarFallo();
+            if (causa instanceof IOException io) {
+                throw io;
+            }
+            if (causa instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    /**
+     * Resultado de una tarea que ya marcó su entrega; solo falta que el Future lo publique
+     */
+    private static <T> T resultadoEntregado(Future<T> futuro) throws IOException {
+        boolean interrumpido = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    return futuro.get();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.usuario.backend.service.storage;
+
+/**
+ * El almacenamiento rechazó la llamada sin intentarla (circuito abierto o bulkhead lleno). Es
+ * una IllegalStateException para que los controladores existentes respondan 503.
+ */
+public class StorageUnavailableException extends IllegalStateException {
+
+    public StorageUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.usuario.backend.service.storage;
+
+/**
+ * Referencia a un archivo guardado en un BlobStore. url es null cuando el backend no expone
+ * el archivo públicamente (p. ej. adjuntos en disco local, que se sirven con control de acceso).
+ */
+public record StoredBlob(String key, String url, String sha256, long size, String contentType) {
+}
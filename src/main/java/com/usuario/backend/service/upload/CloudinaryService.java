@@ -1,67 +1,182 @@
 package com.usuario.backend.service.upload;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import com.usuario.backend.service.storage.BlobDedupService;
+import com.usuario.backend.service.storage.BlobStore;
+import com.usuario.backend.service.storage.StorageUnavailableException;
+import com.usuario.backend.service.storage.StoredBlob;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CloudinaryService {
     
     private static final Logger logger = LoggerFactory.getLogger(CloudinaryService.class);
     
+    public static final String CARPETA_PERFILES = "tecbook_profiles";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobDedupService blobDedupService;
+
+    @Autowired
+    private ImageNormalizationService imageNormalizationService;
+
     @Autowired
-    private Cloudinary cloudinary;
+    private ProfileThumbnailService profileThumbnailService;
+
+    @Value("${app.upload.spool-dir:${java.io.tmpdir}/tecbook-uploads}")
+    private String spoolDir;
+
+    @Value("${app.upload.max-concurrentes:4}")
+    private int maxConcurrentes;
+
+    @Value("${app.upload.espera-permiso-ms:5000}")
+    private long esperaPermisoMs;
+
+    // Limita las subidas simultáneas al almacenamiento (conexiones salientes y descriptores abiertos)
+    private Semaphore permisosSubida;
+
+    @PostConstruct
+    void init() throws IOException {
+        permisosSubida = new Semaphore(maxConcurrentes, true);
+        Files.createDirectories(Paths.get(spoolDir));
+    }
     
+    /**
+     * Sube la imagen sin copiarla al heap: el multipart (que Tomcat ya tiene en disco) se
+     * mueve a un archivo temporal, se normaliza (reducida y sin metadatos) y Cloudinary la
+     * envía en streaming desde ahí.
+     */
     public String uploadImage(MultipartFile file, String userId) {
-    try {
-        // Generar un ID único para la imagen
-        String publicId = "tecbook_profiles/" + userId + "_" + UUID.randomUUID().toString().substring(0, 8);
-        
-        logger.info("Subiendo imagen para el usuario: {}", userId);
-        
-        // Definir transformación como string
-        String transformation = "c_fill,w_300,h_300,g_face";
-        
-        // Configurar opciones básicas con transformación como string
-        Map<String, Object> options = ObjectUtils.asMap(
-            "public_id", publicId,
-            "overwrite", true,
-            "transformation", transformation
+        comprobarDisponible();
+        Path temporal = null;
+        try {
+            temporal = spool(file);
+            return uploadNormalizedImage(temporal, file.getContentType(), userId);
+        } catch (IOException e) {
+            logger.error("Error al preparar imagen para subir: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al subir imagen a Cloudinary", e);
+        } finally {
+            discardSpooled(temporal);
+        }
+    }
+
+    /**
+     * Mueve el multipart al directorio de spool; el llamador es dueño del archivo y debe
+     * borrarlo con discardSpooled
+     */
+    public Path spool(MultipartFile file) throws IOException {
+        Path temporal = Files.createTempFile(Paths.get(spoolDir), "upload-", ".img");
+        try {
+            file.transferTo(temporal);
+            return temporal;
+        } catch (IOException e) {
+            discardSpooled(temporal);
+            throw e;
+        }
+    }
+
+    /**
+     * Normaliza y sube un archivo ya en spool junto con sus miniaturas; borra el normalizado
+     * y las miniaturas pero no el original
+     */
+    public String uploadNormalizedImage(Path spooled, String contentType, String userId) {
+        ImageNormalizationService.ImagenNormalizada normalizada = imageNormalizationService.normalizar(spooled);
+        boolean cambiada = !normalizada.archivo().equals(spooled);
+        try {
+            Map<String, Path> miniaturas = new LinkedHashMap<>();
+            normalizada.miniaturas().forEach((lado, archivo) -> miniaturas.put(String.valueOf(lado), archivo));
+            return subir(normalizada.archivo(), cambiada ? "image/jpeg" : contentType, userId, miniaturas);
+        } finally {
+            if (cambiada) {
+                discardSpooled(normalizada.archivo());
+            }
+            normalizada.miniaturas().values().forEach(this::discardSpooled);
+        }
+    }
+
+    /**
+     * Sube un archivo local al BlobStore activo; como mucho max-concurrentes subidas a la vez
+     */
+    public String uploadImage(Path file, String contentType, String userId) {
+        return subir(file, contentType, userId, Map.of());
+    }
+
+    private String subir(Path file, String contentType, String userId, Map<String, Path> miniaturas) {
+        comprobarDisponible();
+        adquirirPermiso();
+        try {
+            logger.info("Subiendo imagen para el usuario: {} ({})", userId, blobStore.backend());
+
+            StoredBlob blob = blobDedupService.guardar(blobStore, file, CARPETA_PERFILES, contentType, miniaturas);
+            if (!miniaturas.isEmpty()) {
+                profileThumbnailService.invalidar(blob.url());
+            }
+
+            logger.info("Imagen subida exitosamente: {}", blob.url());
+
+            return blob.url();
+
+        } catch (IOException e) {
+            logger.error("Error al subir imagen: {}", e.getMessage(), e);
+            throw new RuntimeException("Error al subir imagen a Cloudinary", e);
+        } finally {
+            permisosSubida.release();
+        }
+    }
+
+    /**
+     * Falla al instante (503) mientras el circuito del almacenamiento está abierto
+     */
+    public void comprobarDisponible() {
+        if (!blobStore.disponible()) {
+            throw new StorageUnavailableException("El almacenamiento de imágenes no está disponible, intenta de nuevo en unos segundos");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "maxConcurrentes", maxConcurrentes,
+            "subidasEnCurso", maxConcurrentes - permisosSubida.availablePermits(),
+            "enEspera", permisosSubida.getQueueLength()
         );
-        
-        // Subir imagen a Cloudinary
-        Map uploadResult = cloudinary.uploader().upload(file.getBytes(), options);
-        
-        // Obtener la URL segura de la imagen
-        String secureUrl = (String) uploadResult.get("secure_url");
-        
-        logger.info("Imagen subida exitosamente: {}", secureUrl);
-        
-        return secureUrl;
-        
-    } catch (IOException e) {
-        logger.error("Error al subir imagen: {}", e.getMessage(), e);
-        throw new RuntimeException("Error al subir imagen a Cloudinary", e);
     }
-}
-    
-    public void deleteImage(String publicId) {
+
+    private void adquirirPermiso() {
         try {
-            // Eliminar imagen de Cloudinary
-            cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
-            logger.info("Imagen eliminada: {}", publicId);
+            if (!permisosSubida.tryAcquire(esperaPermisoMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Demasiadas subidas en curso, intenta de nuevo en unos segundos");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Subida interrumpida", e);
+        }
+    }
+
+    public void discardSpooled(Path temporal) {
+        if (temporal == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporal);
         } catch (IOException e) {
-            logger.error("Error al eliminar imagen: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al eliminar imagen de Cloudinary", e);
+            logger.warn("No se pudo borrar el temporal {}: {}", temporal, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
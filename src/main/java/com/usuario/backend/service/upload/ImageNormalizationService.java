@@ -0,0 +1,493 @@
+package com.usuario.backend.service.upload;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 🖼️ Normaliza imágenes antes de subirlas: decodifica con submuestreo (nunca el raster a
+ * resolución completa), aplica la orientación EXIF, reduce a un lado mínimo de
+ * app.upload.imagen.lado-min px, descarta metadatos y re-codifica en JPEG. Corre en un pool
+ * acotado; si el pool está lleno o el formato no es legible por ImageIO se sube el original.
+ * De la misma decodificación salen las miniaturas cuadradas (app.upload.miniaturas.tamanos),
+ * generadas en paralelo en un ForkJoinPool.
+ */
+@Service
+public class ImageNormalizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageNormalizationService.class);
+
+    @Value("${app.upload.imagen.lado-min:600}")
+    private int ladoMin;
+
+    @Value("${app.upload.imagen.calidad-jpeg:0.85}")
+    private float calidadJpeg;
+
+    @Value("${app.upload.imagen.max-megapixeles:50}")
+    private int maxMegapixeles;
+
+    @Value("${app.upload.imagen.hilos:2}")
+    private int hilos;
+
+    @Value("${app.upload.imagen.cola:32}")
+    private int cola;
+
+    @Value("${app.upload.imagen.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${app.upload.miniaturas.tamanos:32,64,300}")
+    private List<Integer> tamanosMiniatura;
+
+    @Value("${app.upload.miniaturas.paralelismo:2}")
+    private int paralelismoMiniaturas;
+
+    private ThreadPoolExecutor pool;
+
+    private ForkJoinPool miniaturasPool;
+
+    private final LongAdder normalizadas = new LongAdder();
+    private final LongAdder omitidas = new LongAdder();
+    private final LongAdder bytesEntrada = new LongAdder();
+    private final LongAdder bytesSalida = new LongAdder();
+    private final LongAdder tiempoTotalMs = new LongAdder();
+    private final LongAdder miniaturasGeneradas = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola), r -> {
+                    Thread t = new Thread(r, "imagen-normalizacion-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        miniaturasPool = new ForkJoinPool(paralelismoMiniaturas);
+    }
+
+    @PreDestroy
+    public void apagar() {
+        pool.shutdownNow();
+        miniaturasPool.shutdownNow();
+    }
+
+    /**
+     * Imagen lista para subir: archivo normalizado (o el mismo origen si no se pudo normalizar)
+     * y miniaturas por lado en px (vacío si no se generaron)
+     */
+    public record ImagenNormalizada(Path archivo, Map<Integer, Path> miniaturas) {
+        static ImagenNormalizada sinCambios(Path origen) {
+            return new ImagenNormalizada(origen, Map.of());
+        }
+    }
+
+    /**
+     * Normaliza en temporales junto al original; el llamador borra el original, el archivo
+     * normalizado (si es otro) y las miniaturas.
+     */
+    public ImagenNormalizada normalizar(Path origen) {
+        ConTemporales<ImagenNormalizada> proceso = new ConTemporales<>(() -> procesar(origen),
+                normalizada -> borrarTemporales(origen, normalizada));
+        Future<ImagenNormalizada> tarea;
+        try {
+            tarea = pool.submit(proceso);
+        } catch (RejectedExecutionException e) {
+            omitidas.increment();
+            logger.warn("⚠️ Pool de normalización lleno, se sube la imagen original");
+            return ImagenNormalizada.sinCambios(origen);
+        }
+        try {
+            return tarea.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (!proceso.abandonar()) {
+                // Terminó justo al vencer: su resultado es válido
+                return resultadoEntregado(tarea);
+            }
+            tarea.cancel(true);
+            omitidas.increment();
+            logger.warn("⚠️ Normalización excedió {} ms, se sube la imagen original", timeoutMs);
+            return ImagenNormalizada.sinCambios(origen);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!proceso.abandonar()) {
+                return resultadoEntregado(tarea);
+            }
+            tarea.cancel(true);
+            return ImagenNormalizada.sinCambios(origen);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            omitidas.increment();
+            logger.warn("⚠️ No se pudo normalizar la imagen, se sube la original: {}", e.getCause().getMessage());
+            return ImagenNormalizada.sinCambios(origen);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long n = normalizadas.sum();
+        return Map.of(
+            "normalizadas", n,
+            "omitidas", omitidas.sum(),
+            "bytesEntrada", bytesEntrada.sum(),
+            "bytesSalida", bytesSalida.sum(),
+            "msPromedio", n > 0 ? tiempoTotalMs.sum() / n : 0,
+            "miniaturas", miniaturasGeneradas.sum(),
+            "enCola", pool.getQueue().size(),
+            "activos", pool.getActiveCount()
+        );
+    }
+
+    // ========== PROCESO ==========
+
+    private ImagenNormalizada procesar(Path origen) throws IOException {
+        long inicio = System.currentTimeMillis();
+        int orientacion = leerOrientacionExif(origen);
+
+        BufferedImage imagen;
+        try (ImageInputStream in = ImageIO.createImageInputStream(origen.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                omitidas.increment();
+                return ImagenNormalizada.sinCambios(origen);
+            }
+            ImageReader reader = readers.next();
+            try {
+                // ignoreMetadata = true: no se parsean (ni se conservan) EXIF/XMP/ICC
+                reader.setInput(in, true, true);
+                int ancho = reader.getWidth(0);
+                int alto = reader.getHeight(0);
+                if ((long) ancho * alto > maxMegapixeles * 1_000_000L) {
+                    throw new IllegalArgumentException("La imagen es demasiado grande (" + ancho + "x" + alto + ")");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int submuestreo = Math.max(1, Math.min(ancho, alto) / ladoMin);
+                if (submuestreo > 1) {
+                    param.setSourceSubsampling(submuestreo, submuestreo, 0, 0);
+                }
+                imagen = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        BufferedImage salida = redimensionar(imagen, orientacion);
+        Path destino = Files.createTempFile(origen.getParent(), "norm-", ".jpg");
+        try {
+            escribirJpeg(salida, destino);
+            Map<Integer, Path> miniaturas = generarMiniaturas(salida, origen.getParent());
+
+            normalizadas.increment();
+            bytesEntrada.add(Files.size(origen));
+            bytesSalida.add(Files.size(destino));
+            tiempoTotalMs.add(System.currentTimeMillis() - inicio);
+            return new ImagenNormalizada(destino, miniaturas);
+        } catch (IOException | RuntimeException e) {
+            borrarSilencioso(destino);
+            throw e;
+        }
+    }
+
+    /**
+     * Escala para que el lado menor quede en ladoMin (sin ampliar), aplica la orientación
+     * y aplana la transparencia sobre blanco (JPEG no tiene canal alfa)
+     */
+    private BufferedImage redimensionar(BufferedImage imagen, int orientacion) {
+        int w = imagen.getWidth();
+        int h = imagen.getHeight();
+        double escala = Math.min(1.0, (double) ladoMin / Math.min(w, h));
+        int ws = Math.max(1, (int) Math.round(w * escala));
+        int hs = Math.max(1, (int) Math.round(h * escala));
+
+        boolean girada = orientacion >= 5 && orientacion <= 8;
+        BufferedImage salida = new BufferedImage(girada ? hs : ws, girada ? ws : hs, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = salida.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, salida.getWidth(), salida.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.transform(transformacionExif(orientacion, ws, hs));
+            g.drawImage(imagen, 0, 0, ws, hs, null);
+        } finally {
+            g.dispose();
+        }
+        return salida;
+    }
+
+    // ========== MINIATURAS ==========
+
+    /**
+     * Una tarea por tamaño en el ForkJoinPool, todas leyendo la misma imagen ya decodificada.
+     * Las miniaturas son opcionales: si alguna falla (o se interrumpe la espera) no se
+     * devuelve ninguna, y cada una se borra aunque siga en marcha (ver ConTemporales).
+     */
+    private Map<Integer, Path> generarMiniaturas(BufferedImage imagen, Path dir) {
+        if (tamanosMiniatura.isEmpty()) {
+            return Map.of();
+        }
+        // Se envían una a una para conservar los Future aunque la espera se interrumpa
+        List<ConTemporales<Path>> tareas = new ArrayList<>();
+        List<Future<Path>> resultados = new ArrayList<>();
+        for (Integer lado : tamanosMiniatura) {
+            ConTemporales<Path> tarea = new ConTemporales<>(() -> {
+                Path destino = Files.createTempFile(dir, "thumb-" + lado + "-", ".jpg");
+                try {
+                    escribirJpeg(miniatura(imagen, lado), destino);
+                    return destino;
+                } catch (IOException | RuntimeException e) {
+                    borrarSilencioso(destino);
+                    throw e;
+                }
+            }, ImageNormalizationService::borrarSilencioso);
+            tareas.add(tarea);
+            try {
+                resultados.add(miniaturasPool.submit(tarea));
+            } catch (RejectedExecutionException e) {
+                logger.warn("⚠️ Pool de miniaturas no disponible: {}", e.getMessage());
+                tareas.remove(tareas.size() - 1);
+                return descartarMiniaturas(tareas, resultados);
+            }
+        }
+
+        try {
+            Map<Integer, Path> miniaturas = new LinkedHashMap<>();
+            for (int i = 0; i < resultados.size(); i++) {
+                miniaturas.put(tamanosMiniatura.get(i), resultados.get(i).get());
+            }
+            miniaturasGeneradas.add(miniaturas.size());
+            return miniaturas;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("⚠️ No se pudieron generar miniaturas: {}", e.getCause().getMessage());
+        }
+        return descartarMiniaturas(tareas, resultados);
+    }
+
+    /**
+     * Se borran todas, no solo las anteriores a la que falló: las que ya entregaron aquí y
+     * las que siguen en marcha al terminar
+     */
+    private static Map<Integer, Path> descartarMiniaturas(List<ConTemporales<Path>> tareas,
+                                                          List<Future<Path>> resultados) {
+        for (int i = 0; i < tareas.size(); i++) {
+            if (!tareas.get(i).abandonar()) {
+                borrarSilencioso(resultadoEntregado(resultados.get(i)));
+            }
+        }
+        return Map.of();
+    }
+
+    private void borrarTemporales(Path origen, ImagenNormalizada normalizada) {
+        if (!normalizada.archivo().equals(origen)) {
+            borrarSilencioso(normalizada.archivo());
+        }
+        normalizada.miniaturas().values().forEach(ImageNormalizationService::borrarSilencioso);
+    }
+
+    /**
+     * Tarea que crea temporales y compite con quien la espera por marcar "entregada". Si quien
+     * espera se rinde antes (timeout, interrupción, otra miniatura falló), la propia tarea borra
+     * lo que creó al terminar; si la tarea ya entregó, quien se rinde recoge el resultado.
+     */
+    private static final class ConTemporales<T> implements Callable<T> {
+        private final Callable<T> tarea;
+        private final Consumer<T> limpieza;
+        private final AtomicBoolean entregada = new AtomicBoolean();
+
+        private ConTemporales(Callable<T> tarea, Consumer<T> limpieza) {
+            this.tarea = tarea;
+            this.limpieza = limpieza;
+        }
+
+        @Override
+        public T call() throws Exception {
+            T resultado = tarea.call();
+            if (!entregada.compareAndSet(false, true)) {
+                limpieza.accept(resultado);
+                throw new CancellationException("Resultado abandonado por quien lo esperaba");
+            }
+            return resultado;
+        }
+
+        /**
+         * true si la tarea limpiará sola; false si ya entregó y el resultado es de quien llama
+         */
+        private boolean abandonar() {
+            return entregada.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * Resultado de una tarea que ya marcó la entrega; solo falta que el Future lo publique
+     */
+    private static <T> T resultadoEntregado(Future<T> futuro) {
+        boolean interrumpido = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    return futuro.get();
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Recorte cuadrado centrado y reducción por mitades (mejor calidad que un solo salto
+     * bilineal de 600 a 32 px); nunca amplía
+     */
+    private static BufferedImage miniatura(BufferedImage imagen, int lado) {
+        int menor = Math.min(imagen.getWidth(), imagen.getHeight());
+        BufferedImage actual = imagen.getSubimage(
+                (imagen.getWidth() - menor) / 2, (imagen.getHeight() - menor) / 2, menor, menor);
+        int objetivo = Math.min(lado, menor);
+        int tamano = menor;
+        do {
+            tamano = Math.max(objetivo, tamano / 2);
+            BufferedImage siguiente = new BufferedImage(tamano, tamano, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = siguiente.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(actual, 0, 0, tamano, tamano, null);
+            } finally {
+                g.dispose();
+            }
+            actual = siguiente;
+        } while (tamano > objetivo);
+        return actual;
+    }
+
+    private static void borrarSilencioso(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            logger.warn("No se pudo borrar el temporal {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    private void escribirJpeg(BufferedImage imagen, Path destino) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(destino.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(calidadJpeg);
+            // Sin metadatos: solo los marcadores JFIF mínimos
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ========== ORIENTACIÓN EXIF ==========
+
+    /**
+     * Transformación que lleva la imagen (w x h) a su orientación visual según el tag EXIF 0x0112
+     */
+    private static AffineTransform transformacionExif(int orientacion, int w, int h) {
+        AffineTransform t = new AffineTransform();
+        switch (orientacion) {
+            case 2 -> { t.translate(w, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(w, h); t.rotate(Math.PI); }
+            case 4 -> { t.translate(0, h); t.scale(1, -1); }
+            case 5 -> { t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+            case 6 -> { t.translate(h, 0); t.rotate(Math.PI / 2); }
+            case 7 -> { t.translate(h, w); t.rotate(Math.PI / 2); t.scale(-1, 1); }
+            case 8 -> { t.translate(0, w); t.rotate(3 * Math.PI / 2); }
+            default -> { }
+        }
+        return t;
+    }
+
+    /**
+     * Lee solo el tag de orientación del bloque APP1/Exif de un JPEG (1 si no hay o no es JPEG)
+     */
+    static int leerOrientacionExif(Path archivo) {
+        try (InputStream raw = Files.newInputStream(archivo);
+             DataInputStream in = new DataInputStream(raw)) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marcador = in.readUnsignedShort();
+                if ((marcador & 0xFF00) != 0xFF00 || marcador == 0xFFDA || marcador == 0xFFD9) {
+                    return 1;
+                }
+                int largo = in.readUnsignedShort() - 2;
+                if (marcador != 0xFFE1) {
+                    in.skipNBytes(largo);
+                    continue;
+                }
+                byte[] app1 = in.readNBytes(largo);
+                if (app1.length < 14 || app1[0] != 'E' || app1[1] != 'x' || app1[2] != 'i' || app1[3] != 'f') {
+                    continue;
+                }
+                ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+                tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+                int ifd0 = tiff.getInt(4);
+                int entradas = tiff.getShort(ifd0) & 0xFFFF;
+                for (int i = 0; i < entradas; i++) {
+                    int pos = ifd0 + 2 + i * 12;
+                    if ((tiff.getShort(pos) & 0xFFFF) == 0x0112) {
+                        int valor = tiff.getShort(pos + 8) & 0xFFFF;
+                        return valor >= 1 && valor <= 8 ? valor : 1;
+                    }
+                }
+                return 1;
+            }
+        } catch (Exception e) {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.usuario.backend.service.upload;
+
+import com.usuario.backend.model.entity.BlobHuerfano;
+import com.usuario.backend.repository.BlobHuerfanoRepository;
+import com.usuario.backend.service.storage.BlobDedupService;
+import com.usuario.backend.service.storage.BlobStore;
+import com.usuario.backend.service.storage.ResilientBlobStore;
+import com.usuario.backend.service.storage.StorageUnavailableException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🧹 Recolección de imágenes de perfil huérfanas: al reemplazar o quitar una foto se encola
+ * su clave, y un job programado libera las entradas en lotes pequeños y espaciados (respetando
+ * el rate limit del API de borrado) una vez pasado un periodo de gracia.
+ */
+@Service
+public class OrphanImageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanImageCollector.class);
+
+    @Autowired
+    private BlobHuerfanoRepository huerfanoRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobDedupService blobDedupService;
+
+    @Value("${app.orphans.tamano-lote:20}")
+    private int tamanoLote;
+
+    @Value("${app.orphans.pausa-entre-borrados-ms:200}")
+    private long pausaEntreBorradosMs;
+
+    @Value("${app.orphans.gracia-ms:300000}")
+    private long graciaMs;
+
+    @Value("${app.orphans.max-intentos:5}")
+    private int maxIntentos;
+
+    private final LongAdder encolados = new LongAdder();
+    private final LongAdder liberados = new LongAdder();
+    private final LongAdder fallidos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    /**
+     * Las subidas que terminan después de su timeout no las referencia nadie: a la cola
+     */
+    @PostConstruct
+    void init() {
+        if (blobStore instanceof ResilientBlobStore resiliente) {
+            resiliente.alAbandonarSubida(this::encolarClave);
+        }
+    }
+
+    /**
+     * Encola la imagen de una URL reemplazada; las URLs ajenas (p. ej. foto de Google) se ignoran
+     */
+    public void encolar(String url) {
+        if (url == null || url.isBlank()) {
+            return;
+        }
+        blobStore.keyFromUrl(url).ifPresent(clave -> {
+            huerfanoRepository.save(new BlobHuerfano(blobStore.backend(), clave));
+            encolados.increment();
+            logger.debug("🧹 Imagen encolada para borrado: {}", clave);
+        });
+    }
+
+    /**
+     * Encola una clave ya conocida (p. ej. un borrado que no se pudo hacer en el momento)
+     */
+    public void encolarClave(String clave) {
+        huerfanoRepository.save(new BlobHuerfano(blobStore.backend(), clave));
+        encolados.increment();
+        logger.debug("🧹 Clave encolada para borrado: {}", clave);
+    }
+
+    /**
+     * Encola la URL anterior solo si cambió
+     */
+    public void encolarSiReemplazada(String anterior, String nueva) {
+        if (anterior != null && !anterior.equals(nueva)) {
+            encolar(anterior);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.orphans.intervalo-ms:30000}",
+               initialDelayString = "${app.orphans.intervalo-ms:30000}")
+    public void recolectar() {
+        if (!blobStore.disponible()) {
+            // Circuito abierto: no tiene sentido gastar intentos, se espera al siguiente ciclo
+            return;
+        }
+        LocalDateTime limite = LocalDateTime.now().minusNanos(graciaMs * 1_000_000);
+        List<BlobHuerfano> lote = huerfanoRepository.findByBackendAndFechaEncoladoBeforeOrderByFechaEncoladoAscIdAsc(
+                blobStore.backend(), limite, PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        int procesados = 0;
+        for (BlobHuerfano huerfano : lote) {
+            // Borrar la fila primero: si otra instancia ya la tomó, se salta
+            if (huerfanoRepository.reclamar(huerfano.getId()) == 0) {
+                continue;
+            }
+            if (procesados++ > 0 && !pausar()) {
+                reencolar(huerfano, "Recolección interrumpida");
+                break;
+            }
+            try {
+                blobDedupService.liberar(blobStore, huerfano.getClave());
+                liberados.increment();
+            } catch (StorageUnavailableException e) {
+                // Rechazado sin intentarlo: vuelve a la cola sin contar intento y se corta el lote
+                huerfanoRepository.save(new BlobHuerfano(huerfano.getBackend(), huerfano.getClave()));
+                logger.warn("⚠️ Recolección pausada: {}", e.getMessage());
+                break;
+            } catch (Exception e) {
+                reencolar(huerfano, e.getMessage());
+            }
+        }
+        logger.info("🧹 Recolección de huérfanos: {} procesados", procesados);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "pendientes", huerfanoRepository.countByBackend(blobStore.backend()),
+            "encolados", encolados.sum(),
+            "liberados", liberados.sum(),
+            "fallidos", fallidos.sum(),
+            "descartados", descartados.sum()
+        );
+    }
+
+    private void reencolar(BlobHuerfano huerfano, String error) {
+        int intentos = huerfano.getIntentos() + 1;
+        if (intentos >= maxIntentos) {
+            descartados.increment();
+            logger.error("❌ Imagen huérfana descartada tras {} intentos: {} ({})", intentos, huerfano.getClave(), error);
+            return;
+        }
+        fallidos.increment();
+        BlobHuerfano nuevo = new BlobHuerfano(huerfano.getBackend(), huerfano.getClave());
+        nuevo.setIntentos(intentos);
+        nuevo.setUltimoError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        huerfanoRepository.save(nuevo);
+        logger.warn("⚠️ No se pudo borrar la imagen huérfana {} (intento {}): {}", huerfano.getClave(), intentos, error);
+    }
+
+    private boolean pausar() {
+        if (pausaEntreBorradosMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaEntreBorradosMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
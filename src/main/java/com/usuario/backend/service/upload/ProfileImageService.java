@@ -21,6 +21,15 @@ public class ProfileImageService {
     
     @Autowired
     private CloudinaryService cloudinaryService;
+
+    @Autowired
+    private OrphanImageCollector orphanImageCollector;
+
+    @Autowired
+    private ProfileThumbnailService profileThumbnailService;
+
+    @Autowired
+    private UploadValidator uploadValidator;
     
     /**
      * Sube una imagen a Cloudinary y la guarda inmediatamente en la base de datos
@@ -37,17 +46,12 @@ public class ProfileImageService {
             // 2. Subir imagen a Cloudinary
             String imageUrl = cloudinaryService.uploadImage(file, String.valueOf(usuario.getId()));
             logger.info("Imagen subida a Cloudinary exitosamente: {}", imageUrl);
-            // 3. CRÍTICO: Guardar URL en base de datos INMEDIATAMENTE
-            String previousImageUrl = usuario.getProfileImageUrl();
-            usuario.setProfileImageUrl(imageUrl);
-            // Usar actualizarUsuario para garantizar persistencia
-            Usuario usuarioActualizado = usuarioService.actualizarUsuario(usuario);
-            // 4. Verificar que se guardó correctamente
-            if (usuarioActualizado.getProfileImageUrl() == null || 
-                !usuarioActualizado.getProfileImageUrl().equals(imageUrl)) {
-                throw new RuntimeException("Error: La imagen no se guardó correctamente en la base de datos");
-            }
+            // 3. CRÍTICO: Guardar URL en base de datos INMEDIATAMENTE, con la fila bloqueada:
+            // la URL anterior es la que había al escribir, no la leída antes de subir
+            String previousImageUrl = usuarioService.reemplazarProfileImageUrl(usuario.getId(), imageUrl);
             logger.info("URL de imagen guardada exitosamente en BD para usuario: {}", userEmail);
+            // 4. La imagen anterior se borra en segundo plano
+            orphanImageCollector.encolarSiReemplazada(previousImageUrl, imageUrl);
             // 5. Preparar respuesta completa
             Map<String, Object> response = new HashMap<>();
             response.put("imageUrl", imageUrl);
@@ -82,6 +86,7 @@ public class ProfileImageService {
             Map<String, Object> response = new HashMap<>();
             response.put("imageUrl", imageUrl != null ? imageUrl : "");
             response.put("hasImage", imageUrl != null && !imageUrl.isEmpty());
+            response.put("srcset", profileThumbnailService.srcset(imageUrl));
             response.put("userId", usuario.getId());
             response.put("timestamp", System.currentTimeMillis());
             
@@ -94,7 +99,7 @@ public class ProfileImageService {
     }
     
     /**
-     * Elimina la imagen de perfil tanto de Cloudinary como de la base de datos
+     * Elimina la imagen de perfil de la base de datos y encola el archivo para su borrado
      */
     public Map<String, Object> removeProfileImage(String userEmail) {
         logger.info("Eliminando imagen de perfil para usuario: {}", userEmail);
@@ -103,7 +108,8 @@ public class ProfileImageService {
             if (usuario == null) {
                 throw new RuntimeException("Usuario no encontrado: " + userEmail);
             }
-            String currentImageUrl = usuario.getProfileImageUrl();
+            // Eliminar URL de la base de datos; la que se quita es la que había al bloquear la fila
+            String currentImageUrl = usuarioService.reemplazarProfileImageUrl(usuario.getId(), null);
             // Si no hay imagen, no hacer nada
             if (currentImageUrl == null || currentImageUrl.isEmpty()) {
                 Map<String, Object> response = new HashMap<>();
@@ -111,23 +117,8 @@ public class ProfileImageService {
                 response.put("imageUrl", "");
                 return response;
             }
-            // Extraer public_id de la URL de Cloudinary para eliminar
-            try {
-                // Formato típico: https://res.cloudinary.com/cloud/image/upload/v123456/folder/public_id.jpg
-                String[] parts = currentImageUrl.split("/");
-                if (parts.length > 0) {
-                    String fileName = parts[parts.length - 1];
-                    String publicId = "tecbook_profiles/" + fileName.split("\\.")[0];
-                    cloudinaryService.deleteImage(publicId);
-                    logger.info("Imagen eliminada de Cloudinary: {}", publicId);
-                }
-            } catch (Exception e) {
-                logger.warn("Error al eliminar imagen de Cloudinary (continuando): {}", e.getMessage());
-                // Continuar aunque falle Cloudinary
-            }
-            // Eliminar URL de la base de datos
-            usuario.setProfileImageUrl(null);
-            usuarioService.actualizarUsuario(usuario);
+            // El archivo se borra en segundo plano (OrphanImageCollector)
+            orphanImageCollector.encolar(currentImageUrl);
             
             logger.info("Imagen de perfil eliminada exitosamente para: {}", userEmail);
             
@@ -144,7 +135,8 @@ public class ProfileImageService {
     }
     
     /**
-     * Valida si un archivo es una imagen válida
+     * Valida si un archivo es una imagen válida: primero lo declarado y después el contenido
+     * real (bytes mágicos y dimensiones de la cabecera) con UploadValidator
      */
     public void validateImageFile(MultipartFile file) {
         if (file.isEmpty()) {
@@ -174,7 +166,10 @@ public class ProfileImageService {
         if (!isValidType) {
             throw new IllegalArgumentException("Formato no válido. Use JPG, PNG, GIF o WebP");
         }
-        
-        logger.debug("Archivo de imagen validado correctamente: {} ({})", file.getOriginalFilename(), contentType);
+
+        UploadValidator.Inspeccion inspeccion = uploadValidator.validarImagen(file);
+
+        logger.debug("Archivo de imagen validado correctamente: {} ({}, {}x{})", file.getOriginalFilename(),
+                contentType, inspeccion.ancho(), inspeccion.alto());
     }
 }
\ No newline at end of file
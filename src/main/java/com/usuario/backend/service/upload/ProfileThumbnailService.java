@@ -0,0 +1,81 @@
+package com.usuario.backend.service.upload;
+
+import com.usuario.backend.service.cache.SingleFlightCache;
+import com.usuario.backend.service.storage.BlobDedupService;
+import com.usuario.backend.service.storage.BlobStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 🖼️ Miniaturas de las fotos de perfil: a partir de la URL guardada en el usuario devuelve un
+ * mapa lado → URL (p. ej. "32", "64", "300") para que el cliente pida la resolución que pinta.
+ * Las variantes de cada blob no cambian una vez subidas, así que se cachean por clave.
+ */
+@Service
+public class ProfileThumbnailService {
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobDedupService blobDedupService;
+
+    @Value("${app.upload.miniaturas.cache-ttl-ms:3600000}")
+    private long cacheTtlMs;
+
+    @Value("${app.upload.miniaturas.cache-max:20000}")
+    private int cacheMax;
+
+    private SingleFlightCache<String, List<String>> variantesPorClave;
+
+    @PostConstruct
+    void initCache() {
+        variantesPorClave = new SingleFlightCache<>("miniaturasPorClave", cacheTtlMs, cacheMax);
+    }
+
+    /**
+     * Mapa lado → URL de la imagen; vacío si no es del almacenamiento activo o no tiene miniaturas
+     */
+    public Map<String, String> srcset(String url) {
+        Optional<String> clave = blobStore.keyFromUrl(url);
+        if (clave.isEmpty()) {
+            return Map.of();
+        }
+        List<String> variantes = variantesPorClave.get(clave.get(), c -> blobDedupService.variantes(blobStore, c));
+        Map<String, String> srcset = new LinkedHashMap<>();
+        for (String variante : variantes) {
+            blobStore.variantUrl(url, variante).ifPresent(v -> srcset.put(variante, v));
+        }
+        return srcset;
+    }
+
+    /**
+     * srcset de varias URLs a la vez (listas de participantes, hilos de comentarios)
+     */
+    public Map<String, Map<String, String>> srcsets(Collection<String> urls) {
+        Map<String, Map<String, String>> resultado = new HashMap<>();
+        for (String url : urls) {
+            if (url != null && !resultado.containsKey(url)) {
+                resultado.put(url, srcset(url));
+            }
+        }
+        return resultado;
+    }
+
+    public void invalidar(String url) {
+        blobStore.keyFromUrl(url).ifPresent(variantesPorClave::invalidate);
+    }
+
+    public SingleFlightCache.CacheStats getStats() {
+        return variantesPorClave.getStats();
+    }
+}
@@ -0,0 +1,260 @@
+package com.usuario.backend.service.upload;
+
+import com.usuario.backend.model.entity.Usuario;
+import com.usuario.backend.service.user.UsuarioService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 📤 Subida asíncrona de imágenes de perfil: el hilo de la petición solo copia el archivo al
+ * spool local y devuelve un jobId; un pool acotado hace la subida a Cloudinary y el guardado
+ * en BD, reintentando con backoff exponencial los fallos transitorios.
+ */
+@Service
+public class ProfileUploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileUploadJobService.class);
+
+    public enum Status { PENDING, PROCESSING, RETRYING, COMPLETED, FAILED }
+
+    @Autowired
+    private CloudinaryService cloudinaryService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private OrphanImageCollector orphanImageCollector;
+
+    @Value("${app.upload.async.workers:2}")
+    private int workers;
+
+    @Value("${app.upload.async.capacidad-cola:50}")
+    private int capacidadCola;
+
+    @Value("${app.upload.async.max-intentos:4}")
+    private int maxIntentos;
+
+    @Value("${app.upload.async.backoff-inicial-ms:1000}")
+    private long backoffInicialMs;
+
+    @Value("${app.upload.async.backoff-max-ms:30000}")
+    private long backoffMaxMs;
+
+    @Value("${app.upload.async.retencion-ms:600000}")
+    private long retencionMs;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor pool;
+
+    // Solo programa reintentos; el trabajo real siempre vuelve al pool acotado
+    private ScheduledExecutorService reintentos;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread t = new Thread(r, "profile-upload-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        reintentos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "profile-upload-retry");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void apagar() {
+        reintentos.shutdownNow();
+        pool.shutdownNow();
+        jobs.values().forEach(job -> cloudinaryService.discardSpooled(job.file));
+    }
+
+    /**
+     * Copia el archivo al spool y encola el trabajo. Lanza IllegalStateException si la cola
+     * está llena o el circuito del almacenamiento está abierto (el llamador responde 503).
+     */
+    public Job submit(MultipartFile file, Usuario usuario) throws IOException {
+        cloudinaryService.comprobarDisponible();
+        Path spooled = cloudinaryService.spool(file);
+        Job job = new Job(UUID.randomUUID().toString(), usuario.getId(), spooled, file.getContentType());
+        jobs.put(job.id, job);
+        try {
+            pool.execute(() -> ejecutar(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            cloudinaryService.discardSpooled(spooled);
+            throw new IllegalStateException("Demasiadas subidas en cola, intenta de nuevo en unos segundos");
+        }
+        logger.info("📤 Subida de perfil encolada: job {} (usuario {})", job.id, usuario.getId());
+        return job;
+    }
+
+    /**
+     * Estado del trabajo, solo visible para su dueño
+     */
+    public Job getJob(String jobId, Long usuarioId) {
+        Job job = jobs.get(jobId);
+        return job != null && job.usuarioId.equals(usuarioId) ? job : null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Long> porEstado = new LinkedHashMap<>();
+        for (Status s : Status.values()) {
+            porEstado.put(s.name(), jobs.values().stream().filter(j -> j.status == s).count());
+        }
+        return Map.of(
+            "enCola", pool.getQueue().size(),
+            "activos", pool.getActiveCount(),
+            "capacidadCola", capacidadCola,
+            "trabajos", porEstado
+        );
+    }
+
+    /**
+     * 🧹 Olvida los trabajos terminados tras el periodo de retención
+     */
+    @Scheduled(fixedDelayString = "${app.upload.async.purge-interval-ms:60000}")
+    public void purgar() {
+        long limite = System.currentTimeMillis() - retencionMs;
+        jobs.values().removeIf(job -> job.isTerminado() && job.updatedAt < limite);
+    }
+
+    // ========== WORKER ==========
+
+    private void ejecutar(Job job) {
+        job.intentos++;
+        job.actualizar(Status.PROCESSING, null);
+        try {
+            // Si la subida ya funcionó en un intento anterior solo se reintenta el guardado
+            if (job.imageUrl == null) {
+                job.imageUrl = cloudinaryService.uploadNormalizedImage(job.file, job.contentType,
+                        String.valueOf(job.usuarioId));
+            }
+            guardarUrl(job);
+            job.actualizar(Status.COMPLETED, null);
+            cloudinaryService.discardSpooled(job.file);
+            logger.info("✅ Subida de perfil completada: job {} -> {}", job.id, job.imageUrl);
+        } catch (IllegalArgumentException e) {
+            // Error del archivo o del usuario: reintentar no lo arregla
+            fallar(job, e.getMessage());
+        } catch (Exception e) {
+            if (job.intentos >= maxIntentos) {
+                fallar(job, e.getMessage());
+                return;
+            }
+            long espera = backoff(job.intentos);
+            job.actualizar(Status.RETRYING, e.getMessage());
+            logger.warn("⚠️ Subida de perfil falló (job {}, intento {}/{}), reintento en {} ms: {}",
+                    job.id, job.intentos, maxIntentos, espera, e.getMessage());
+            programarReintento(job, espera);
+        }
+    }
+
+    private void programarReintento(Job job, long esperaMs) {
+        reintentos.schedule(() -> {
+            try {
+                pool.execute(() -> ejecutar(job));
+            } catch (RejectedExecutionException e) {
+                // Cola llena: esperar otra vez sin consumir un intento
+                programarReintento(job, Math.min(esperaMs * 2, backoffMaxMs));
+            }
+        }, esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private long backoff(int intento) {
+        long base = Math.min(backoffMaxMs, backoffInicialMs << Math.min(intento - 1, 20));
+        return base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private void guardarUrl(Job job) {
+        // Solo se encola la URL que este guardado sustituyó de verdad
+        String anterior = usuarioService.reemplazarProfileImageUrl(job.usuarioId, job.imageUrl);
+        job.guardada = true;
+        orphanImageCollector.encolarSiReemplazada(anterior, job.imageUrl);
+    }
+
+    private void fallar(Job job, String error) {
+        // Subida hecha pero nunca guardada en el perfil: nadie la referencia, se borra
+        if (job.imageUrl != null && !job.guardada) {
+            try {
+                orphanImageCollector.encolar(job.imageUrl);
+            } catch (Exception e) {
+                logger.error("❌ No se pudo encolar la imagen del job {} para borrado: {}", job.id, e.getMessage());
+            }
+        }
+        job.actualizar(Status.FAILED, error);
+        cloudinaryService.discardSpooled(job.file);
+        logger.error("❌ Subida de perfil fallida: job {} tras {} intento(s): {}", job.id, job.intentos, error);
+    }
+
+    /**
+     * Trabajo de subida; los campos mutables solo los escribe el worker que lo ejecuta
+     */
+    public static class Job {
+        private final String id;
+        private final Long usuarioId;
+        private final Path file;
+        private final String contentType;
+        private final long createdAt;
+        private volatile Status status = Status.PENDING;
+        private volatile int intentos;
+        private volatile String imageUrl;
+        private volatile boolean guardada;
+        private volatile String error;
+        private volatile long updatedAt;
+
+        Job(String id, Long usuarioId, Path file, String contentType) {
+            this.id = id;
+            this.usuarioId = usuarioId;
+            this.file = file;
+            this.contentType = contentType;
+            this.createdAt = System.currentTimeMillis();
+            this.updatedAt = createdAt;
+        }
+
+        private void actualizar(Status status, String error) {
+            this.status = status;
+            this.error = error;
+            this.updatedAt = System.currentTimeMillis();
+        }
+
+        public String getId() { return id; }
+        public Status getStatus() { return status; }
+        public int getIntentos() { return intentos; }
+        public String getImageUrl() { return status == Status.COMPLETED ? imageUrl : null; }
+        public String getError() { return error; }
+        public long getCreatedAt() { return createdAt; }
+        public long getUpdatedAt() { return updatedAt; }
+
+        public boolean isTerminado() {
+            return status == Status.COMPLETED || status == Status.FAILED;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.usuario.backend.service.upload;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔎 Valida subidas por su contenido y no por lo que declara el cliente: reconoce el formato por
+ * sus bytes mágicos y lee las dimensiones de la cabecera de la imagen (SOF en JPEG, IHDR en PNG,
+ * descriptor de pantalla en GIF, VP8/VP8L/VP8X en WebP) sin decodificar píxeles. Solo se leen
+ * las cabeceras; los segmentos JPEG intermedios (EXIF, ICC) se saltan sin cargarlos.
+ */
+@Service
+public class UploadValidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadValidator.class);
+
+    public static final Set<String> IMAGENES_PERMITIDAS = Set.of("image/jpeg", "image/png", "image/gif", "image/webp");
+
+    private static final String ZIP = "application/zip";
+    private static final String OLE = "application/x-ole-storage";
+    private static final String EJECUTABLE = "application/x-executable";
+
+    // Tipos declarados aceptables para cada formato detectado (Office usa ZIP u OLE por dentro)
+    private static final Map<String, Set<String>> DECLARADOS_COMPATIBLES = Map.of(
+        ZIP, Set.of(ZIP, "application/x-zip-compressed",
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+                "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+                "application/vnd.oasis.opendocument.text",
+                "application/vnd.oasis.opendocument.spreadsheet",
+                "application/vnd.oasis.opendocument.presentation"),
+        OLE, Set.of("application/msword", "application/vnd.ms-excel", "application/vnd.ms-powerpoint")
+    );
+
+    // Cabecera mínima para reconocer cualquiera de los formatos (WebP VP8 necesita 30 bytes)
+    private static final int BYTES_FIRMA = 32;
+
+    @Value("${app.upload.validacion.max-bytes-cabecera:262144}")
+    private int maxBytesCabecera;
+
+    @Value("${app.upload.validacion.max-lado:10000}")
+    private int maxLado;
+
+    @Value("${app.upload.imagen.max-megapixeles:50}")
+    private int maxMegapixeles;
+
+    private final LongAdder validados = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+
+    /**
+     * Formato detectado; ancho y alto valen 0 si no es una imagen
+     */
+    public record Inspeccion(String mime, int ancho, int alto) {
+        public boolean esImagen() {
+            // Set.of no admite contains(null): sin firma reconocida no es imagen
+            return mime != null && IMAGENES_PERMITIDAS.contains(mime);
+        }
+    }
+
+    /**
+     * Exige una imagen permitida cuyo contenido coincida con el tipo declarado y cuyas
+     * dimensiones no superen los límites (evita bombas de descompresión antes de subirla)
+     */
+    public Inspeccion validarImagen(MultipartFile archivo) {
+        Inspeccion inspeccion = inspeccionar(archivo);
+        if (!inspeccion.esImagen()) {
+            return rechazar("El contenido del archivo no es una imagen JPG, PNG, GIF o WebP");
+        }
+        if (!inspeccion.mime().equals(normalizarTipo(archivo.getContentType()))) {
+            return rechazar("El contenido del archivo no coincide con el tipo declarado");
+        }
+        validarDimensiones(inspeccion);
+        validados.increment();
+        return inspeccion;
+    }
+
+    /**
+     * Valida un adjunto de anuncio: rechaza ejecutables y tipos declarados que no coinciden con
+     * el contenido; las imágenes pasan además por el límite de dimensiones. Devuelve el tipo a
+     * guardar (el detectado, o el declarado si es compatible y más específico).
+     */
+    public String validarAdjunto(MultipartFile archivo) {
+        Inspeccion inspeccion = inspeccionar(archivo);
+        String declarado = normalizarTipo(archivo.getContentType());
+        String detectado = inspeccion.mime();
+
+        if (EJECUTABLE.equals(detectado)) {
+            rechazar("No se permiten archivos ejecutables");
+        }
+        if (detectado == null) {
+            // Formato sin firma (texto, CSV...): solo se rechaza si declara uno que sí la tiene
+            if (declaradoConFirma(declarado)) {
+                rechazar("El contenido del archivo no coincide con el tipo declarado");
+            }
+            validados.increment();
+            return archivo.getContentType();
+        }
+        if (inspeccion.esImagen()) {
+            validarDimensiones(inspeccion);
+        }
+
+        String tipo = detectado;
+        if (declarado != null && !declarado.equals(detectado) && !"application/octet-stream".equals(declarado)) {
+            if (!DECLARADOS_COMPATIBLES.getOrDefault(detectado, Set.of()).contains(declarado)) {
+                rechazar("El contenido del archivo no coincide con el tipo declarado");
+            }
+            tipo = declarado;
+        }
+        validados.increment();
+        return tipo;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "validados", validados.sum(),
+            "rechazados", rechazados.sum()
+        );
+    }
+
+    // ========== DETECCIÓN ==========
+
+    private Inspeccion inspeccionar(MultipartFile archivo) {
+        try (InputStream in = new BufferedInputStream(archivo.getInputStream(), 8192)) {
+            return inspeccionar(in);
+        } catch (EOFException e) {
+            return rechazar("La cabecera del archivo está incompleta");
+        } catch (IOException e) {
+            logger.warn("⚠️ No se pudo leer la cabecera de {}: {}", archivo.getOriginalFilename(), e.getMessage());
+            return rechazar("No se pudo leer el archivo");
+        }
+    }
+
+    Inspeccion inspeccionar(InputStream in) throws IOException {
+        byte[] firma = in.readNBytes(BYTES_FIRMA);
+        int n = firma.length;
+
+        if (n >= 3 && u8(firma, 0) == 0xFF && u8(firma, 1) == 0xD8 && u8(firma, 2) == 0xFF) {
+            return dimensionesJpeg(firma, in);
+        }
+        if (n >= 24 && empieza(firma, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A) && ascii(firma, 12, "IHDR")) {
+            return new Inspeccion("image/png", be32(firma, 16), be32(firma, 20));
+        }
+        if (n >= 10 && (ascii(firma, 0, "GIF87a") || ascii(firma, 0, "GIF89a"))) {
+            return new Inspeccion("image/gif", le16(firma, 6), le16(firma, 8));
+        }
+        if (n >= 30 && ascii(firma, 0, "RIFF") && ascii(firma, 8, "WEBP")) {
+            return dimensionesWebp(firma);
+        }
+        if (n >= 5 && ascii(firma, 0, "%PDF-")) {
+            return new Inspeccion("application/pdf", 0, 0);
+        }
+        if (n >= 4 && empieza(firma, 'P', 'K', 0x03, 0x04)) {
+            return new Inspeccion(ZIP, 0, 0);
+        }
+        if (n >= 8 && empieza(firma, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return new Inspeccion(OLE, 0, 0);
+        }
+        if ((n >= 2 && ascii(firma, 0, "MZ")) || (n >= 4 && empieza(firma, 0x7F, 'E', 'L', 'F'))) {
+            return new Inspeccion(EJECUTABLE, 0, 0);
+        }
+        return new Inspeccion(null, 0, 0);
+    }
+
+    /**
+     * Recorre los segmentos JPEG hasta el primer SOFn; los cuerpos de los demás se saltan
+     */
+    private Inspeccion dimensionesJpeg(byte[] firma, InputStream resto) throws IOException {
+        InputStream in = new SequenceInputStream(
+                new ByteArrayInputStream(firma, 2, firma.length - 2), resto);
+        long posicion = 2;
+        while (posicion < maxBytesCabecera) {
+            int marcador = in.read();
+            posicion++;
+            if (marcador != 0xFF) {
+                return rechazar("Cabecera JPEG no válida");
+            }
+            int tipo = in.read();
+            posicion++;
+            while (tipo == 0xFF) {
+                // Relleno entre marcadores
+                tipo = in.read();
+                posicion++;
+            }
+            if (tipo < 0 || tipo == 0xD9 || tipo == 0xDA) {
+                break;
+            }
+            if (tipo == 0x01 || (tipo >= 0xD0 && tipo <= 0xD7)) {
+                continue; // Marcadores sin longitud
+            }
+            int longitud = (leerByte(in) << 8) | leerByte(in);
+            if (longitud < 2) {
+                return rechazar("Cabecera JPEG no válida");
+            }
+            if (tipo >= 0xC0 && tipo <= 0xCF && tipo != 0xC4 && tipo != 0xC8 && tipo != 0xCC) {
+                byte[] sof = in.readNBytes(5);
+                if (sof.length < 5) {
+                    throw new EOFException();
+                }
+                return new Inspeccion("image/jpeg", be16(sof, 3), be16(sof, 1));
+            }
+            in.skipNBytes(longitud - 2);
+            posicion += longitud;
+        }
+        return rechazar("No se encontraron las dimensiones de la imagen JPEG");
+    }
+
+    private Inspeccion dimensionesWebp(byte[] f) {
+        if (ascii(f, 12, "VP8 ")) {
+            return new Inspeccion("image/webp", le16(f, 26) & 0x3FFF, le16(f, 28) & 0x3FFF);
+        }
+        if (ascii(f, 12, "VP8L")) {
+            int b1 = u8(f, 22), b2 = u8(f, 23), b3 = u8(f, 24);
+            int ancho = 1 + (((b1 & 0x3F) << 8) | u8(f, 21));
+            int alto = 1 + (((b3 & 0x0F) << 10) | (b2 << 2) | ((b1 & 0xC0) >> 6));
+            return new Inspeccion("image/webp", ancho, alto);
+        }
+        if (ascii(f, 12, "VP8X")) {
+            return new Inspeccion("image/webp", 1 + le24(f, 24), 1 + le24(f, 27));
+        }
+        return rechazar("Cabecera WebP no válida");
+    }
+
+    private void validarDimensiones(Inspeccion inspeccion) {
+        int ancho = inspeccion.ancho();
+        int alto = inspeccion.alto();
+        if (ancho <= 0 || alto <= 0) {
+            rechazar("La imagen no tiene dimensiones válidas");
+        }
+        if (ancho > maxLado || alto > maxLado || (long) ancho * alto > maxMegapixeles * 1_000_000L) {
+            rechazar("La imagen es demasiado grande (" + ancho + "x" + alto + " px)");
+        }
+    }
+
+    private <T> T rechazar(String motivo) {
+        rechazados.increment();
+        throw new IllegalArgumentException(motivo);
+    }
+
+    private static boolean declaradoConFirma(String declarado) {
+        return declarado != null && (IMAGENES_PERMITIDAS.contains(declarado) || "application/pdf".equals(declarado)
+                || DECLARADOS_COMPATIBLES.values().stream().anyMatch(tipos -> tipos.contains(declarado)));
+    }
+
+    private static String normalizarTipo(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        String tipo = contentType.toLowerCase();
+        int puntoYComa = tipo.indexOf(';');
+        if (puntoYComa >= 0) {
+            tipo = tipo.substring(0, puntoYComa);
+        }
+        tipo = tipo.trim();
+        return "image/jpg".equals(tipo) || "image/pjpeg".equals(tipo) ? "image/jpeg" : tipo;
+    }
+
+    // ========== BYTES ==========
+
+    private static int leerByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static boolean empieza(byte[] datos, int... firma) {
+        for (int i = 0; i < firma.length; i++) {
+            if (u8(datos, i) != firma[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(byte[] datos, int desde, String texto) {
+        return Arrays.equals(datos, desde, desde + texto.length(),
+                texto.getBytes(StandardCharsets.US_ASCII), 0, texto.length());
+    }
+
+    private static int u8(byte[] b, int i) {
+        return b[i] & 0xFF;
+    }
+
+    private static int be16(byte[] b, int i) {
+        return (u8(b, i) << 8) | u8(b, i + 1);
+    }
+
+    private static int be32(byte[] b, int i) {
+        return (u8(b, i) << 24) | (u8(b, i + 1) << 16) | (u8(b, i + 2) << 8) | u8(b, i + 3);
+    }
+
+    private static int le16(byte[] b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8);
+    }
+
+    private static int le24(byte[] b, int i) {
+        return u8(b, i) | (u8(b, i + 1) << 8) | (u8(b, i + 2) << 16);
+    }
+}
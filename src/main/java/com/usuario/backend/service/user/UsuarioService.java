@@ -2,6 +2,7 @@ package com.usuario.backend.service.user;
 
 import com.usuario.backend.model.entity.Usuario;
 import com.usuario.backend.repository.UsuarioRepository;
+import com.usuario.backend.service.upload.OrphanImageCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +13,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 @Service
@@ -24,6 +27,9 @@ public class UsuarioService implements UserDetailsService {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private OrphanImageCollector orphanImageCollector;
+
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
     // ========== REGISTRO NORMAL ==========
@@ -103,9 +109,12 @@ public class UsuarioService implements UserDetailsService {
                 // Actualizar datos existentes
                 if (usuario.getNombre() != null) existingUser.setNombre(usuario.getNombre());
                 if (usuario.getApellidos() != null) existingUser.setApellidos(usuario.getApellidos());
+                String imagenAnterior = existingUser.getProfileImageUrl();
                 if (usuario.getProfileImageUrl() != null) existingUser.setProfileImageUrl(usuario.getProfileImageUrl());
                 
-                return usuarioRepository.save(existingUser);
+                Usuario actualizado = usuarioRepository.save(existingUser);
+                orphanImageCollector.encolarSiReemplazada(imagenAnterior, actualizado.getProfileImageUrl());
+                return actualizado;
             } else {
                 // Crear nuevo con datos mínimos
                 return guardarUsuarioOAuth2(usuario);
@@ -204,6 +213,21 @@ public class UsuarioService implements UserDetailsService {
         }
     }
 
+    /**
+     * 🖼️ Cambia la foto de perfil con la fila bloqueada y devuelve la URL que se sustituyó
+     * realmente. Leyendo y guardando la entidad sin bloqueo, dos subidas simultáneas veían la
+     * misma URL anterior: la encolaban dos veces y la intermedia no se borraba nunca.
+     */
+    @Transactional
+    public String reemplazarProfileImageUrl(Long usuarioId, String nuevaUrl) {
+        List<String> actual = usuarioRepository.findProfileImageUrlParaActualizar(usuarioId);
+        if (actual.isEmpty()) {
+            throw new IllegalArgumentException("Usuario no encontrado: " + usuarioId);
+        }
+        usuarioRepository.actualizarProfileImageUrl(usuarioId, nuevaUrl);
+        return actual.get(0);
+    }
+
     /**
      * 🔍 Busca usuario por correo
      */
@@ -0,0 +1,304 @@
+package com.usuario.backend.service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SingleFlightCacheTest {
+
+    private final ExecutorService hilos = Executors.newCachedThreadPool();
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        hilos.shutdownNow();
+    }
+
+    private static SingleFlightCache<String, String> cache() {
+        return new SingleFlightCache<>("test", 60_000, 100);
+    }
+
+    private String cargar(String key) {
+        cargas.incrementAndGet();
+        return "valor-" + key;
+    }
+
+    // ========== HITS Y TTL ==========
+
+    @Test
+    void laSegundaLecturaNoVuelveACargar() {
+        SingleFlightCache<String, String> cache = cache();
+
+        assertEquals("valor-a", cache.get("a", this::cargar));
+        assertEquals("valor-a", cache.get("a", this::cargar));
+
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void unaEntradaExpiradaSeVuelveACargar() throws InterruptedException {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", 50, 100);
+        cache.get("a", this::cargar);
+
+        Thread.sleep(80);
+        cache.get("a", this::cargar);
+
+        assertEquals(2, cargas.get());
+    }
+
+    // ========== SINGLE-FLIGHT ==========
+
+    @Test
+    void cargasConcurrentesDeLaMismaClaveSeCoalescen() throws Exception {
+        SingleFlightCache<String, String> cache = cache();
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<String> primero = hilos.submit(() -> cache.get("a", key -> {
+            dentro.countDown();
+            esperar(soltar);
+            return cargar(key);
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        Future<String> segundo = hilos.submit(() -> cache.get("a", this::cargar));
+        Future<String> tercero = hilos.submit(() -> cache.get("a", this::cargar));
+        esperarHasta(() -> cache.getStats().getCoalesced() == 2);
+        soltar.countDown();
+
+        assertEquals("valor-a", primero.get(5, TimeUnit.SECONDS));
+        assertEquals("valor-a", segundo.get(5, TimeUnit.SECONDS));
+        assertEquals("valor-a", tercero.get(5, TimeUnit.SECONDS));
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void clavesDistintasNoSeEsperanEntreSi() throws Exception {
+        SingleFlightCache<String, String> cache = cache();
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<String> bloqueada = hilos.submit(() -> cache.get("a", key -> {
+            esperar(soltar);
+            return cargar(key);
+        }));
+
+        assertEquals("valor-b", cache.get("b", this::cargar));
+        soltar.countDown();
+        assertEquals("valor-a", bloqueada.get(5, TimeUnit.SECONDS));
+    }
+
+    // ========== CARGAS FALLIDAS ==========
+
+    @Test
+    void unaCargaFallidaNoSeCachea() {
+        SingleFlightCache<String, String> cache = cache();
+
+        assertThrows(IllegalStateException.class, () -> cache.get("a", key -> {
+            throw new IllegalStateException("BD caída");
+        }));
+
+        assertEquals("valor-a", cache.get("a", this::cargar));
+        assertEquals(1, cargas.get());
+        assertEquals(1, cache.getStats().getLoadFailures());
+    }
+
+    @Test
+    void unErrorEnLaCargaTampocoSeCachea() {
+        SingleFlightCache<String, String> cache = cache();
+
+        assertThrows(StackOverflowError.class, () -> cache.get("a", key -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals("valor-a", cache.get("a", this::cargar));
+        assertEquals(1, cache.getStats().getSize());
+    }
+
+    @Test
+    void losQueEsperanRecibenLaMismaExcepcion() throws Exception {
+        SingleFlightCache<String, String> cache = cache();
+        IllegalStateException fallo = new IllegalStateException("BD caída");
+
+        Future<String> segundo = arrancarEsperaSobreCargaQueFalla(cache, fallo);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> segundo.get(5, TimeUnit.SECONDS));
+        assertSame(fallo, e.getCause());
+    }
+
+    @Test
+    void losQueEsperanNoSeQuedanColgadosSiLaCargaLanzaUnError() throws Exception {
+        SingleFlightCache<String, String> cache = cache();
+        OutOfMemoryError fallo = new OutOfMemoryError("simulado");
+
+        Future<String> segundo = arrancarEsperaSobreCargaQueFalla(cache, fallo);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> segundo.get(5, TimeUnit.SECONDS));
+        assertSame(fallo, e.getCause());
+    }
+
+    // ========== INVALIDACIÓN Y UPDATE ==========
+
+    @Test
+    void invalidarDuranteUnaCargaNoPublicaSuResultado() throws Exception {
+        SingleFlightCache<String, String> cache = cache();
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<String> antigua = hilos.submit(() -> cache.get("a", key -> {
+            dentro.countDown();
+            esperar(soltar);
+            return "antiguo";
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        cache.invalidate("a");
+        soltar.countDown();
+        assertEquals("antiguo", antigua.get(5, TimeUnit.SECONDS));
+
+        assertEquals("valor-a", cache.get("a", this::cargar));
+        assertEquals(1, cache.getStats().getInvalidations());
+    }
+
+    @Test
+    void updateModificaElValorSinRecargar() {
+        SingleFlightCache<String, String> cache = cache();
+        cache.get("a", this::cargar);
+
+        cache.update("a", v -> v + "-editado");
+
+        assertEquals("valor-a-editado", cache.get("a", this::cargar));
+        assertEquals(1, cargas.get());
+    }
+
+    @Test
+    void updateSobreUnaClaveAusenteNoHaceNada() {
+        SingleFlightCache<String, String> cache = cache();
+
+        cache.update("a", v -> fail("no debería aplicarse"));
+
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    // ========== RECORTE ==========
+
+    @Test
+    void alSuperarElMaximoSeQuitanLasMasAntiguas() throws InterruptedException {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", 60_000, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.get("k" + i, this::cargar);
+            Thread.sleep(2);
+        }
+
+        cache.get("k10", this::cargar);
+
+        // Baja al 90 % del máximo quitando las dos cargadas hace más tiempo
+        assertEquals(9, cache.getStats().getSize());
+        cargas.set(0);
+        cache.get("k10", this::cargar);
+        cache.get("k2", this::cargar);
+        assertEquals(0, cargas.get());
+        cache.get("k0", this::cargar);
+        cache.get("k1", this::cargar);
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void alSuperarElMaximoSeQuitanPrimeroLasExpiradas() throws InterruptedException {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", 50, 3);
+        cache.get("a", this::cargar);
+        cache.get("b", this::cargar);
+        cache.get("c", this::cargar);
+
+        Thread.sleep(80);
+        cache.get("d", this::cargar);
+
+        assertEquals(1, cache.getStats().getSize());
+    }
+
+    @Test
+    void elRecorteNoTocaLasCargasEnCurso() throws Exception {
+        SingleFlightCache<String, String> cache = new SingleFlightCache<>("test", 60_000, 2);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<String> enCurso = hilos.submit(() -> cache.get("lenta", key -> {
+            dentro.countDown();
+            esperar(soltar);
+            return cargar(key);
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        cache.get("a", this::cargar);
+        Thread.sleep(2);
+        cache.get("b", this::cargar);
+
+        // "lenta" sigue en el mapa: quien llegue ahora espera esa carga en lugar de lanzar otra
+        Future<String> coalescida = hilos.submit(() -> cache.get("lenta", this::cargar));
+        esperarHasta(() -> cache.getStats().getCoalesced() == 1);
+        soltar.countDown();
+
+        assertEquals("valor-lenta", enCurso.get(5, TimeUnit.SECONDS));
+        assertEquals("valor-lenta", coalescida.get(5, TimeUnit.SECONDS));
+        assertEquals(3, cargas.get());
+    }
+
+    // ========== AUXILIARES ==========
+
+    private Future<String> arrancarEsperaSobreCargaQueFalla(SingleFlightCache<String, String> cache,
+                                                           Throwable fallo) throws InterruptedException {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        hilos.submit(() -> cache.get("a", key -> {
+            dentro.countDown();
+            esperar(soltar);
+            if (fallo instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) fallo;
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        Future<String> segundo = hilos.submit(() -> cache.get("a", this::cargar));
+        esperarHasta(() -> cache.getStats().getCoalesced() == 1);
+        soltar.countDown();
+        return segundo;
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("timeout esperando al test");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                fail("la condición no se cumplió a tiempo");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.usuario.backend.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BlobDownloadServiceTest {
+
+    private static final String SHA = "abc123";
+    private static final String ETAG = "\"" + SHA + "\"";
+
+    // 10 bytes: 0123456789
+    private static final byte[] CONTENIDO = "0123456789".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path dir;
+
+    private final BlobDownloadService service = new BlobDownloadService();
+
+    private Path archivo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        archivo = Files.write(dir.resolve("datos.bin"), CONTENIDO);
+    }
+
+    @Test
+    void sinRangeSirveElArchivoCompleto() throws IOException {
+        MockHttpServletResponse response = servir(archivo, peticion());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+        assertArrayEquals(CONTENIDO, response.getContentAsByteArray());
+        assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void rangoCerradoDevuelveParcial() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-4");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-4/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(3, response.getContentLengthLong());
+        assertEquals("234", response.getContentAsString());
+    }
+
+    @Test
+    void rangoQueSePasaDelFinalSeRecorta() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=7-100");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+    }
+
+    // ========== RANGOS SUFIJO ==========
+
+    @Test
+    void rangoSufijoDevuelveLosUltimosBytes() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+    }
+
+    @Test
+    void rangoSufijoMayorQueElArchivoLoDevuelveEntero() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-500");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 0-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENIDO, response.getContentAsByteArray());
+    }
+
+    @Test
+    void rangoSufijoVacioNoEsSatisfacible() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-0");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    // ========== FUERA DE RANGO ==========
+
+    @Test
+    void inicioMasAllaDelFinalDevuelve416() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void rangoMalFormadoSeIgnora() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-2");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENIDO, response.getContentAsByteArray());
+    }
+
+    @Test
+    void multirangoSirveElArchivoCompleto() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,5-6");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(CONTENIDO, response.getContentAsByteArray());
+    }
+
+    // ========== IF-RANGE E IF-NONE-MATCH ==========
+
+    @Test
+    void ifRangeQueCoincideRespetaElRango() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("01", response.getContentAsString());
+    }
+
+    @Test
+    void ifRangeQueNoCoincideSirveElArchivoCompleto() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"otro-hash\"");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(CONTENIDO, response.getContentAsByteArray());
+    }
+
+    @Test
+    void ifRangeConFechaNoCoincideConUnEtag() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+    }
+
+    @Test
+    void ifNoneMatchQueCoincideDevuelve304SinCuerpo() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"viejo\", W/" + ETAG);
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    // ========== ARCHIVO VACÍO ==========
+
+    @Test
+    void archivoVacioSinRangeDevuelve200SinCuerpo() throws IOException {
+        Path vacio = Files.createFile(dir.resolve("vacio.bin"));
+
+        MockHttpServletResponse response = servir(vacio, peticion());
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void archivoVacioConRangeNoEsSatisfacible() throws IOException {
+        Path vacio = Files.createFile(dir.resolve("vacio.bin"));
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-");
+
+        MockHttpServletResponse response = servir(vacio, request);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */0", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void archivoVacioConRangoSufijoNoEsSatisfacible() throws IOException {
+        Path vacio = Files.createFile(dir.resolve("vacio.bin"));
+        MockHttpServletRequest request = peticion();
+        request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+
+        MockHttpServletResponse response = servir(vacio, request);
+
+        assertEquals(416, response.getStatus());
+    }
+
+    // ========== HEAD Y SENDFILE ==========
+
+    @Test
+    void headDevuelveCabecerasSinCuerpo() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/descarga");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void conSendfileDelegaElRangoATomcatConFinExclusivo() throws IOException {
+        MockHttpServletRequest request = peticion();
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=3-5");
+
+        MockHttpServletResponse response = servir(archivo, request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(archivo.toRealPath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(3L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    // ========== AUXILIARES ==========
+
+    private MockHttpServletResponse servir(Path path, MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        service.servir(path, SHA, "datos.bin", "application/octet-stream", request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest peticion() {
+        return new MockHttpServletRequest("GET", "/descarga");
+    }
+}
@@ -0,0 +1,214 @@
+package com.usuario.backend.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    // Sin espera: la primera llamada tras abrir ya pasa a SEMIABIERTO
+    private static CircuitBreaker sinEspera(int llamadasPrueba) {
+        return new CircuitBreaker("test", 10, 4, 50, 0, llamadasPrueba);
+    }
+
+    private static CircuitBreaker conEspera(long esperaMs) {
+        return new CircuitBreaker("test", 10, 4, 50, esperaMs, 2);
+    }
+
+    private static void fallar(CircuitBreaker circuito, int veces) {
+        for (int i = 0; i < veces; i++) {
+            assertTrue(circuito.permitir());
+            circuito.registrarFallo();
+        }
+    }
+
+    private static void acertar(CircuitBreaker circuito, int veces) {
+        for (int i = 0; i < veces; i++) {
+            assertTrue(circuito.permitir());
+            circuito.registrarExito();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long transiciones(CircuitBreaker circuito, String clave) {
+        return ((Map<String, Long>) circuito.getStats().get("transiciones")).get(clave);
+    }
+
+    // ========== CERRADO ==========
+
+    @Test
+    void noAbreSinElMinimoDeLlamadas() {
+        CircuitBreaker circuito = conEspera(60_000);
+
+        fallar(circuito, 3);
+
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+        assertTrue(circuito.permitir());
+    }
+
+    @Test
+    void noAbrePorDebajoDelUmbral() {
+        CircuitBreaker circuito = conEspera(60_000);
+
+        acertar(circuito, 3);
+        fallar(circuito, 2);
+
+        // 2 de 5 = 40 % < 50 %
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+    }
+
+    @Test
+    void abreAlLlegarAlUmbral() {
+        CircuitBreaker circuito = conEspera(60_000);
+
+        acertar(circuito, 3);
+        fallar(circuito, 3);
+
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+        assertEquals(1L, transiciones(circuito, "CERRADO->ABIERTO"));
+    }
+
+    @Test
+    void losFallosAntiguosSalenDeLaVentana() {
+        CircuitBreaker circuito = new CircuitBreaker("test", 4, 4, 50, 60_000, 2);
+
+        fallar(circuito, 1);
+        acertar(circuito, 4);
+
+        assertEquals(0, circuito.getStats().get("tasaFallosPct"));
+        // Un fallo con la ventana llena de éxitos: 1 de 4 = 25 %
+        fallar(circuito, 1);
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+    }
+
+    // ========== ABIERTO ==========
+
+    @Test
+    void abiertoRechazaSinLlamarHastaQuePasaLaEspera() {
+        CircuitBreaker circuito = conEspera(60_000);
+        fallar(circuito, 4);
+
+        assertFalse(circuito.permitir());
+        assertFalse(circuito.permitir());
+        assertFalse(circuito.disponible());
+        assertEquals(2L, circuito.getStats().get("rechazadas"));
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+    }
+
+    @Test
+    void disponibleNoCambiaElEstado() {
+        CircuitBreaker circuito = sinEspera(1);
+        fallar(circuito, 4);
+
+        assertTrue(circuito.disponible());
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+    }
+
+    @Test
+    void pasaASemiabiertoCuandoVenceLaEspera() throws InterruptedException {
+        CircuitBreaker circuito = conEspera(100);
+        fallar(circuito, 4);
+        assertFalse(circuito.permitir());
+
+        Thread.sleep(150);
+
+        assertTrue(circuito.permitir());
+        assertEquals(CircuitBreaker.Estado.SEMIABIERTO, circuito.getEstado());
+    }
+
+    // ========== SEMIABIERTO ==========
+
+    @Test
+    void semiabiertoSoloDejaPasarLasLlamadasDePrueba() {
+        CircuitBreaker circuito = sinEspera(2);
+        fallar(circuito, 4);
+
+        assertTrue(circuito.permitir());
+        assertTrue(circuito.permitir());
+        assertFalse(circuito.permitir());
+        assertEquals(CircuitBreaker.Estado.SEMIABIERTO, circuito.getEstado());
+    }
+
+    @Test
+    void unaLlamadaIgnoradaLiberaSuHuecoDePrueba() {
+        CircuitBreaker circuito = sinEspera(1);
+        fallar(circuito, 4);
+
+        assertTrue(circuito.permitir());
+        assertFalse(circuito.permitir());
+        circuito.registrarIgnorada();
+
+        assertTrue(circuito.permitir());
+    }
+
+    @Test
+    void semiabiertoCierraCuandoTodasLasPruebasVanBien() {
+        CircuitBreaker circuito = sinEspera(2);
+        fallar(circuito, 4);
+
+        acertar(circuito, 1);
+        assertEquals(CircuitBreaker.Estado.SEMIABIERTO, circuito.getEstado());
+        acertar(circuito, 1);
+
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+        // Se empieza con la ventana limpia
+        assertEquals(0, circuito.getStats().get("llamadasEnVentana"));
+        assertEquals(0, circuito.getStats().get("tasaFallosPct"));
+    }
+
+    @Test
+    void semiabiertoVuelveAAbrirConElPrimerFallo() {
+        CircuitBreaker circuito = sinEspera(2);
+        fallar(circuito, 4);
+        assertTrue(circuito.permitir());
+        assertTrue(circuito.permitir());
+
+        circuito.registrarExito();
+        circuito.registrarFallo();
+
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+        assertEquals(1L, transiciones(circuito, "SEMIABIERTO->ABIERTO"));
+    }
+
+    @Test
+    void reaperturaDesdeSemiabiertoReiniciaLaEspera() throws InterruptedException {
+        CircuitBreaker circuito = conEspera(100);
+        fallar(circuito, 4);
+        Thread.sleep(150);
+        assertTrue(circuito.permitir());
+
+        circuito.registrarFallo();
+
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+        assertFalse(circuito.permitir());
+    }
+
+    // ========== CICLO COMPLETO ==========
+
+    @Test
+    void cicloCerradoAbiertoSemiabiertoCerrado() {
+        CircuitBreaker circuito = sinEspera(2);
+
+        acertar(circuito, 2);
+        fallar(circuito, 2);
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+
+        acertar(circuito, 2);
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+
+        // Ya cerrado, con ventana limpia: tres fallos no bastan para el mínimo de cuatro
+        fallar(circuito, 3);
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+
+        assertEquals(1L, transiciones(circuito, "CERRADO->ABIERTO"));
+        assertEquals(1L, transiciones(circuito, "ABIERTO->SEMIABIERTO"));
+        assertEquals(1L, transiciones(circuito, "SEMIABIERTO->CERRADO"));
+        assertEquals(0L, transiciones(circuito, "SEMIABIERTO->ABIERTO"));
+        assertEquals(4L, circuito.getStats().get("exitos"));
+        assertEquals(5L, circuito.getStats().get("fallos"));
+    }
+}
@@ -0,0 +1,297 @@
+package com.usuario.backend.service.upload;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadValidatorTest {
+
+    private UploadValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        validator = new UploadValidator();
+        ReflectionTestUtils.setField(validator, "maxBytesCabecera", 262144);
+        ReflectionTestUtils.setField(validator, "maxLado", 10000);
+        ReflectionTestUtils.setField(validator, "maxMegapixeles", 50);
+    }
+
+    // ========== FORMATOS ==========
+
+    @Test
+    void leeDimensionesDeJpegReal() throws IOException {
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(codificar("jpeg", 640, 480)));
+
+        assertEquals("image/jpeg", inspeccion.mime());
+        assertEquals(640, inspeccion.ancho());
+        assertEquals(480, inspeccion.alto());
+    }
+
+    @Test
+    void saltaSegmentosYRellenoHastaElSof() throws IOException {
+        byte[] jpeg = bytes(
+                0xFF, 0xD8,
+                0xFF, 0xE1, 0x00, 0x08, 'E', 'x', 'i', 'f', 0x00, 0x00,      // APP1 que se salta
+                0xFF, 0xC4, 0x00, 0x04, 0x00, 0x00,                          // DHT (no es SOF)
+                0xFF, 0xFF, 0xFF,                                            // relleno entre marcadores
+                0xC2, 0x00, 0x11, 0x08, 0x00, 0x64, 0x00, 0xC8, 0x03,       // SOF2 progresivo: 200x100
+                0x01, 0x11, 0x00, 0x02, 0x11, 0x01, 0x03, 0x11, 0x01);
+
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(jpeg));
+
+        assertEquals(200, inspeccion.ancho());
+        assertEquals(100, inspeccion.alto());
+    }
+
+    @Test
+    void leeDimensionesDePngReal() throws IOException {
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(codificar("png", 321, 123)));
+
+        assertEquals("image/png", inspeccion.mime());
+        assertEquals(321, inspeccion.ancho());
+        assertEquals(123, inspeccion.alto());
+    }
+
+    @Test
+    void leeDimensionesDeGifReal() throws IOException {
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(codificar("gif", 77, 55)));
+
+        assertEquals("image/gif", inspeccion.mime());
+        assertEquals(77, inspeccion.ancho());
+        assertEquals(55, inspeccion.alto());
+    }
+
+    @Test
+    void leeDimensionesDeWebpConPerdida() throws IOException {
+        byte[] webp = webp("VP8 ");
+        // Frame tag (3 bytes) y código de inicio 9D 01 2A; después ancho y alto de 14 bits
+        webp[23] = (byte) 0x9D;
+        webp[24] = 0x01;
+        webp[25] = 0x2A;
+        le16(webp, 26, 1024 | 0xC000); // los 2 bits altos son la escala y se ignoran
+        le16(webp, 28, 768);
+
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(webp));
+
+        assertEquals("image/webp", inspeccion.mime());
+        assertEquals(1024, inspeccion.ancho());
+        assertEquals(768, inspeccion.alto());
+    }
+
+    @Test
+    void leeDimensionesDeWebpSinPerdida() throws IOException {
+        byte[] webp = webp("VP8L");
+        webp[20] = 0x2F;
+        // 14 bits de ancho - 1 y 14 bits de alto - 1, empaquetados en little endian
+        int bits = (4000 - 1) | ((3000 - 1) << 14);
+        webp[21] = (byte) bits;
+        webp[22] = (byte) (bits >> 8);
+        webp[23] = (byte) (bits >> 16);
+        webp[24] = (byte) (bits >> 24);
+
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(webp));
+
+        assertEquals(4000, inspeccion.ancho());
+        assertEquals(3000, inspeccion.alto());
+    }
+
+    @Test
+    void leeDimensionesDeWebpExtendido() throws IOException {
+        byte[] webp = webp("VP8X");
+        le24(webp, 24, 1920 - 1);
+        le24(webp, 27, 1080 - 1);
+
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(entrada(webp));
+
+        assertEquals(1920, inspeccion.ancho());
+        assertEquals(1080, inspeccion.alto());
+    }
+
+    @Test
+    void rechazaWebpConChunkDesconocido() {
+        assertThrows(IllegalArgumentException.class, () -> validator.inspeccionar(entrada(webp("ALPH"))));
+    }
+
+    @Test
+    void contenidoSinFirmaNoTieneTipo() throws IOException {
+        UploadValidator.Inspeccion inspeccion = validator.inspeccionar(
+                entrada("nombre,nota\nana,17\n".getBytes(StandardCharsets.US_ASCII)));
+
+        assertNull(inspeccion.mime());
+        assertFalse(inspeccion.esImagen());
+    }
+
+    // ========== CABECERAS TRUNCADAS ==========
+
+    @Test
+    void rechazaJpegCortadoDentroDeUnSegmento() {
+        byte[] jpeg = codificar("jpeg", 64, 64);
+        // SOI + APP0 de JFIF, cortado antes de llegar al SOF
+        byte[] truncado = Arrays.copyOf(jpeg, 12);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validarImagen(archivo(truncado, "image/jpeg")));
+        assertEquals("La cabecera del archivo está incompleta", e.getMessage());
+    }
+
+    @Test
+    void rechazaJpegCortadoDentroDelSof() {
+        byte[] truncado = bytes(0xFF, 0xD8, 0xFF, 0xC0, 0x00, 0x11, 0x08, 0x00);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validarImagen(archivo(truncado, "image/jpeg")));
+        assertEquals("La cabecera del archivo está incompleta", e.getMessage());
+    }
+
+    @Test
+    void rechazaJpegSinSofAntesDelInicioDeDatos() {
+        byte[] sinSof = bytes(0xFF, 0xD8, 0xFF, 0xDA, 0x00, 0x02);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validarImagen(archivo(sinSof, "image/jpeg")));
+    }
+
+    @Test
+    void pngSinIhdrCompletoNoEsImagen() {
+        byte[] truncado = Arrays.copyOf(codificar("png", 10, 10), 20);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validarImagen(archivo(truncado, "image/png")));
+        assertEquals("El contenido del archivo no es una imagen JPG, PNG, GIF o WebP", e.getMessage());
+    }
+
+    @Test
+    void webpCortadoNoEsImagen() {
+        byte[] truncado = Arrays.copyOf(webp("VP8X"), 24);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validarImagen(archivo(truncado, "image/webp")));
+    }
+
+    // ========== TIPO DECLARADO Y LÍMITES ==========
+
+    @Test
+    void aceptaImagenQueCoincideConLoDeclarado() {
+        UploadValidator.Inspeccion inspeccion = validator.validarImagen(archivo(codificar("png", 40, 30), "image/png"));
+
+        assertTrue(inspeccion.esImagen());
+        assertEquals(40, inspeccion.ancho());
+    }
+
+    @Test
+    void normalizaAliasDeJpegDeclarado() {
+        UploadValidator.Inspeccion inspeccion = validator.validarImagen(
+                archivo(codificar("jpeg", 16, 16), "image/jpg; charset=binary"));
+
+        assertEquals("image/jpeg", inspeccion.mime());
+    }
+
+    @Test
+    void rechazaContenidoQueNoCoincideConLoDeclarado() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validarImagen(archivo(codificar("png", 10, 10), "image/jpeg")));
+        assertEquals("El contenido del archivo no coincide con el tipo declarado", e.getMessage());
+    }
+
+    @Test
+    void rechazaNoImagenDeclaradaComoImagen() {
+        byte[] pdf = "%PDF-1.7\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validarImagen(archivo(pdf, "image/png")));
+    }
+
+    @Test
+    void rechazaDimensionesPorEncimaDelLimite() {
+        byte[] gif = bytes('G', 'I', 'F', '8', '9', 'a', 0x00, 0x00, 0x10, 0x27, 0x00, 0x00, 0x00);
+        le16(gif, 6, 20000);
+        le16(gif, 8, 10);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> validator.validarImagen(archivo(gif, "image/gif")));
+        assertTrue(e.getMessage().startsWith("La imagen es demasiado grande"));
+    }
+
+    @Test
+    void rechazaDimensionesNulas() {
+        byte[] gif = bytes('G', 'I', 'F', '8', '7', 'a', 0x00, 0x00, 0x05, 0x00, 0x00, 0x00, 0x00);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validarImagen(archivo(gif, "image/gif")));
+    }
+
+    @Test
+    void adjuntoEjecutableSeRechazaAunqueDeclareOtroTipo() {
+        byte[] exe = bytes('M', 'Z', 0x90, 0x00, 0x03, 0x00);
+
+        assertThrows(IllegalArgumentException.class, () -> validator.validarAdjunto(archivo(exe, "application/pdf")));
+    }
+
+    @Test
+    void adjuntoOfficeConservaElTipoDeclaradoCompatible() {
+        String docx = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+        byte[] zip = bytes('P', 'K', 0x03, 0x04, 0x14, 0x00, 0x00, 0x00);
+
+        assertEquals(docx, validator.validarAdjunto(archivo(zip, docx)));
+    }
+
+    // ========== AUXILIARES ==========
+
+    private static byte[] codificar(String formato, int ancho, int alto) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(ImageIO.write(new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB), formato, out));
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cabecera RIFF/WEBP de 32 bytes con el chunk indicado en el offset 12
+     */
+    private static byte[] webp(String chunk) {
+        byte[] datos = new byte[32];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, datos, 0, 4);
+        System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, datos, 8, 4);
+        System.arraycopy(chunk.getBytes(StandardCharsets.US_ASCII), 0, datos, 12, 4);
+        return datos;
+    }
+
+    private static MockMultipartFile archivo(byte[] contenido, String contentType) {
+        return new MockMultipartFile("file", "archivo", contentType, contenido);
+    }
+
+    private static ByteArrayInputStream entrada(byte[] contenido) {
+        return new ByteArrayInputStream(contenido);
+    }
+
+    private static byte[] bytes(int... valores) {
+        byte[] datos = new byte[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            datos[i] = (byte) valores[i];
+        }
+        return datos;
+    }
+
+    private static void le16(byte[] b, int i, int valor) {
+        b[i] = (byte) valor;
+        b[i + 1] = (byte) (valor >> 8);
+    }
+
+    private static void le24(byte[] b, int i, int valor) {
+        le16(b, i, valor);
+        b[i + 2] = (byte) (valor >> 16);
+    }
+}